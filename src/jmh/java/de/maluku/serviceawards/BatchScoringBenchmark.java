@@ -0,0 +1,113 @@
+package de.maluku.serviceawards;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring one season of {@link #users} users with {@link #entriesPerUser} log entries each, starting from the BSON
+ * documents a cursor hands out: per object by mapping {@link LogEntry} entities and calling {@link LogEntry#getStats}
+ * as {@link SeasonSummaries#rebuild(String, String)} does, against the columnar {@link BatchScoring} path with the
+ * scalar and the Vector API kernel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BatchScoringBenchmark {
+  @Param({"1000", "10000"})
+  int users;
+
+  @Param({"10", "100"})
+  int entriesPerUser;
+
+  Season season;
+  MappingMongoConverter converter;
+  List<Document> rows;
+  Map<String, List<Document>> byUser;
+  ColumnSums vector;
+
+  @Setup
+  public void setup() {
+    season = UserBenchmark.syntheticSeason(UserBenchmark.season(0));
+    converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+    converter.afterPropertiesSet();
+    Random random = new Random(42);
+    rows = new ArrayList<>(users * entriesPerUser);
+    byUser = new LinkedHashMap<>();
+    for (int u = 0; u < users; u++) {
+      String userId = "user" + u;
+      List<Document> logs = new ArrayList<>(entriesPerUser);
+      for (int i = 0; i < entriesPerUser; i++) {
+        LogEntry entry = LogEntry.builder()
+          .userId(userId)
+          .season(season.getId())
+          .addServiceHours(random.nextInt(3))
+          .dm(random.nextInt(5))
+          .prepTime(random.nextInt(3))
+          .safetyTools(random.nextInt(2))
+          .learnToPlay(random.nextInt(2))
+          .reviewing(random.nextInt(2))
+          .codeOfConduct(random.nextInt(2))
+          .build();
+        Document row = new Document();
+        converter.write(entry, row);
+        logs.add(row);
+      }
+      rows.addAll(logs);
+      byUser.put(userId, logs);
+    }
+    vector = ColumnSums.preferred();
+  }
+
+  @Benchmark
+  public Map<String, Stats> perObject() {
+    Map<String, Stats> stats = new HashMap<>();
+    byUser.forEach((userId, logs) -> {
+      List<LogEntry> entries = new ArrayList<>(logs.size());
+      for (Document row : logs) {
+        entries.add(converter.read(LogEntry.class, row));
+      }
+      stats.put(userId, LogEntry.getStats(season, entries, List.of()));
+    });
+    return stats;
+  }
+
+  @Benchmark
+  public Map<String, Stats> batchScalar() {
+    return batch(ColumnSums.SCALAR);
+  }
+
+  @Benchmark
+  public Map<String, Stats> batchVector() {
+    return batch(vector);
+  }
+
+  private Map<String, Stats> batch(ColumnSums kernel) {
+    Map<String, Stats> stats = new HashMap<>();
+    BatchScoring.sum(rows, row -> row.getString("userId"), Activity::read, kernel).forEach((userId, counters) -> stats.put(userId, season.scoring().stats(counters)));
+    return stats;
+  }
+}
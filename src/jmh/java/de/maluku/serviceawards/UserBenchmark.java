@@ -0,0 +1,137 @@
+package de.maluku.serviceawards;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Domain hot paths over a synthetic user whose log entries are spread over {@link #SEASONS} seasons, with roughly
+ * one assignment per ten entries. Run with {@code gradle jmh}, which attaches the gc profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserBenchmark {
+  static final int SEASONS = 20;
+  static final int REWARDS = 12;
+
+  @Param({"100", "1000", "10000"})
+  int entries;
+
+  User user;
+  Season season;
+  UUID usedEntry;
+  UUID unusedEntry;
+
+  @Setup
+  public void setup() {
+    user = syntheticUser(entries, new Random(42));
+    season = syntheticSeason(season(SEASONS / 2));
+    usedEntry = user.getAssignments().stream().filter(a -> a.getEntryAsPlayer() != null).findFirst().orElseThrow().getEntryAsPlayer();
+    unusedEntry = user.getLogEntries().get(user.getLogEntries().size() - 1).getId();
+  }
+
+  @Benchmark
+  public Stats logEntryStats() {
+    return LogEntry.getStats(season, user.getLogEntries(), user.getAssignments());
+  }
+
+  @Benchmark
+  public Stats assignmentStats() {
+    return Assigment.getStats(season, user.getAssignments());
+  }
+
+  @Benchmark
+  public List<LogEntry> available() {
+    return user.available(season.getId(), usedEntry);
+  }
+
+  @Benchmark
+  public List<Assigment> findAssignments() {
+    return user.find(season.getId(), REWARDS / 2);
+  }
+
+  @Benchmark
+  public boolean used() {
+    return user.used(unusedEntry);
+  }
+
+  @Benchmark
+  public List<String> locations() {
+    return user.locations();
+  }
+
+  @Benchmark
+  public List<String> characters() {
+    return user.characters();
+  }
+
+  static String season(int index) {
+    return "S" + index;
+  }
+
+  static Season syntheticSeason(String id) {
+    Season season = Season.builder().id(id).start(new Date(0)).end(new Date()).build();
+    for (int i = 0; i < REWARDS; i++) {
+      RewardLevel level = RewardLevel.builder().id("L" + i).name("Level " + i).cost(5 + i).build();
+      season.getRewards().add(RewardEntry.builder().name("Reward " + i).level(level).repeatable(i % 3 == 0).build());
+    }
+    return season;
+  }
+
+  static User syntheticUser(int entries, Random random) {
+    User user = new User("bench");
+    List<LogEntry> logs = new ArrayList<>(entries);
+    List<Assigment> assignments = new ArrayList<>(entries / 10 + 1);
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < entries; i++) {
+      LogEntry entry = LogEntry.builder()
+        .userId(user.getUserId())
+        .season(season(i % SEASONS))
+        .date(new Date(now - random.nextInt(1_000_000_000)))
+        .title("Session " + i)
+        .location("Location " + random.nextInt(50))
+        .addServiceHours(random.nextInt(3))
+        .dm(random.nextInt(5))
+        .prepTime(random.nextInt(3))
+        .safetyTools(random.nextInt(2))
+        .learnToPlay(random.nextInt(2))
+        .reviewing(random.nextInt(2))
+        .codeOfConduct(random.nextInt(2))
+        .build();
+      logs.add(entry);
+      if (i % 10 == 0) {
+        assignments.add(Assigment.builder()
+          .userId(user.getUserId())
+          .season(entry.getSeason())
+          .reward(random.nextInt(REWARDS))
+          .entryAsPlayer(i % 20 == 0 ? entry.getId() : null)
+          .fullReward(i % 30 == 0)
+          .rewardCharacter("Character " + random.nextInt(20))
+          .levelUpCharacter(random.nextBoolean() ? "Character " + random.nextInt(20) : null)
+          .build());
+      }
+    }
+    user.setLogEntries(logs);
+    user.setAssignments(assignments);
+    return user;
+  }
+}
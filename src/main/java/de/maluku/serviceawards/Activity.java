@@ -0,0 +1,42 @@
+package de.maluku.serviceawards;
+
+import org.bson.Document;
+
+/**
+ * The activity counters of a {@link LogEntry}, in the order of {@link LogEntry#counters()} and of the weight vector a
+ * {@link Scoring} compiles to.
+ */
+public enum Activity {
+  ADD_SERVICE_HOURS("addServiceHours"),
+  ADD_FULL_REWARDS("addFullRewards"),
+  DM("dm"),
+  PREP_TIME("prepTime"),
+  SAFETY_TOOLS("safetyTools"),
+  NEW_PLAYERS("newPlayers"),
+  MENTORING("mentoring"),
+  REVIEWING("reviewing"),
+  LEARN_TO_PLAY("learnToPlay"),
+  CODE_OF_CONDUCT("codeOfConduct"),
+  STREAMING("streaming"),
+  EVENT_ORGA("eventOrga"),
+  EVENT_STAFFING("eventStaffing");
+
+  static final int COUNT = values().length;
+
+  /** the {@link LogEntry} field holding the counter */
+  final String field;
+
+  Activity(String field) {
+    this.field = field;
+  }
+
+  /**
+   * Reads the counters of a stored row, or sums grouped under the same field names, into a vector in
+   * {@link Activity} order; missing fields count as 0.
+   */
+  static void read(Document document, int[] counters) {
+    for (Activity activity : values()) {
+      counters[activity.ordinal()] = document.get(activity.field) instanceof Number number ? number.intValue() : 0;
+    }
+  }
+}
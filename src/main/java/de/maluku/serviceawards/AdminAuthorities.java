@@ -0,0 +1,162 @@
+package de.maluku.serviceawards;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
+import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Resolves {@link User#isAdmin()} once at OAuth2 login into a {@value #ROLE_ADMIN} authority, so admin endpoints are
+ * checked against the session instead of Mongo.
+ * <p>
+ * When a {@link User} saved through Spring Data flips the flag known for that user, the change is kept with its time,
+ * and sessions of that user whose authorities were resolved before it pick up the new authority on their next
+ * request. A session idle longer than the session timeout is gone, so changes are kept no longer than that. Flags
+ * changed directly in Mongo take effect at the next login.
+ */
+@Component
+@Profile("!reactive")
+public class AdminAuthorities extends OncePerRequestFilter {
+  public static final String ROLE_ADMIN = "ROLE_ADMIN";
+  private static final GrantedAuthority ADMIN = new SimpleGrantedAuthority(ROLE_ADMIN);
+  private static final String RESOLVED_AT = AdminAuthorities.class.getName() + ".resolvedAt";
+  private static final int MAX_USERS = 10_000;
+
+  private final UserRepository userRepository;
+  private final Cache<String, Boolean> flags = Caffeine.newBuilder().maximumSize(MAX_USERS).build();
+  private final Cache<String, Change> changes;
+  private final SecurityContextRepository contexts = new HttpSessionSecurityContextRepository();
+
+  public AdminAuthorities(UserRepository userRepository, @Value("${server.servlet.session.timeout:30m}") Duration sessionTimeout) {
+    this.userRepository = userRepository;
+    this.changes = Caffeine.newBuilder()
+      .maximumSize(MAX_USERS)
+      .expireAfterWrite(sessionTimeout)
+      .build();
+  }
+
+  public OAuth2UserService<OAuth2UserRequest, OAuth2User> oauth2UserService() {
+    DefaultOAuth2UserService delegate = new DefaultOAuth2UserService();
+    return request -> {
+      OAuth2User user = delegate.loadUser(request);
+      String nameAttribute = request.getClientRegistration().getProviderDetails().getUserInfoEndpoint().getUserNameAttributeName();
+      return new DefaultOAuth2User(withAdmin(user.getAuthorities(), resolve(user.getName())), user.getAttributes(), nameAttribute);
+    };
+  }
+
+  public OAuth2UserService<OidcUserRequest, OidcUser> oidcUserService() {
+    OidcUserService delegate = new OidcUserService();
+    return request -> {
+      OidcUser user = delegate.loadUser(request);
+      String nameAttribute = request.getClientRegistration().getProviderDetails().getUserInfoEndpoint().getUserNameAttributeName();
+      Set<GrantedAuthority> authorities = withAdmin(user.getAuthorities(), resolve(user.getName()));
+      return new DefaultOidcUser(authorities, user.getIdToken(), user.getUserInfo(), StringUtils.hasText(nameAttribute) ? nameAttribute : IdTokenClaimNames.SUB);
+    };
+  }
+
+  /**
+   * Marks when the session's authorities were resolved, so only later changes are applied to it.
+   */
+  public AuthenticationSuccessHandler loginSuccessHandler() {
+    AuthenticationSuccessHandler delegate = new SavedRequestAwareAuthenticationSuccessHandler();
+    return (request, response, authentication) -> {
+      request.getSession().setAttribute(RESOLVED_AT, System.currentTimeMillis());
+      delegate.onAuthenticationSuccess(request, response, authentication);
+    };
+  }
+
+  @EventListener
+  public void onSave(AfterSaveEvent<?> event) {
+    if (event.getSource() instanceof User user) {
+      Boolean known = flags.asMap().put(user.getUserId(), user.isAdmin());
+      if (known != null && known != user.isAdmin()) {
+        changes.put(user.getUserId(), new Change(user.isAdmin(), System.currentTimeMillis()));
+      }
+    }
+  }
+
+  public static boolean isAdmin(Authentication authentication) {
+    return authentication != null && authentication.getAuthorities().contains(ADMIN);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+    SecurityContext context = SecurityContextHolder.getContext();
+    if (changes.estimatedSize() > 0 && context.getAuthentication() instanceof OAuth2AuthenticationToken token) {
+      Change change = changes.getIfPresent(token.getName());
+      HttpSession session = request.getSession(false);
+      if (change != null && session != null && change.at() >= resolvedAt(session)) {
+        session.setAttribute(RESOLVED_AT, System.currentTimeMillis());
+        if (change.admin() != isAdmin(token)) {
+          OAuth2AuthenticationToken refreshed = new OAuth2AuthenticationToken(token.getPrincipal(), withAdmin(token.getAuthorities(), change.admin()), token.getAuthorizedClientRegistrationId());
+          refreshed.setDetails(token.getDetails());
+          SecurityContext updated = SecurityContextHolder.createEmptyContext();
+          updated.setAuthentication(refreshed);
+          SecurityContextHolder.setContext(updated);
+          contexts.saveContext(updated, request, response);
+        }
+      }
+    }
+    chain.doFilter(request, response);
+  }
+
+  private boolean resolve(String userId) {
+    boolean admin = userRepository.existsByUserIdAndAdminTrue(userId);
+    flags.put(userId, admin);
+    return admin;
+  }
+
+  private static long resolvedAt(HttpSession session) {
+    return session.getAttribute(RESOLVED_AT) instanceof Long at ? at : 0;
+  }
+
+  private static Set<GrantedAuthority> withAdmin(Collection<? extends GrantedAuthority> authorities, boolean admin) {
+    Set<GrantedAuthority> result = new LinkedHashSet<>(authorities);
+    if (admin) {
+      result.add(ADMIN);
+    }
+    else {
+      result.remove(ADMIN);
+    }
+    return result;
+  }
+
+  private record Change(boolean admin, long at) {
+  }
+}
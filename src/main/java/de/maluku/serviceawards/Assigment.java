@@ -5,21 +5,41 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
+@Document("assignments")
+@CompoundIndexes({
+  @CompoundIndex(name = "user_season", def = "{'userId': 1, 'season': 1}"),
+  @CompoundIndex(name = "user_entry", def = "{'userId': 1, 'entryAsPlayer': 1}")
+})
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class Assigment {
+  /**
+   * Order of the assignments within one reward slot. Pages and forms address them by their position in the slot, so
+   * every read has to list them in this order rather than in Mongo's natural order, which moves on updates.
+   */
+  public static final Comparator<Assigment> SLOT_ORDER = Comparator.comparing(Assigment::getId);
+
+  @Id
+  @Builder.Default
+  private UUID id = UUID.randomUUID();
+  private String userId;
   private String season;
   private int reward;
   private UUID entryAsPlayer;
@@ -49,15 +69,15 @@ public class Assigment {
   public static Stats getStats(Season season, List<Assigment> assigments) {
     final String id = season.getId();
     final List<RewardEntry> rewards = season.getRewards();
-    Stats stats = new Stats();
+    StatsAccumulator stats = new StatsAccumulator(StatsAccumulator.USED);
     for (final Assigment assigment : assigments) {
       if (!Objects.equals(assigment.getSeason(), id)) continue;
       if (assigment.getReward() < 0) continue;
       if (assigment.getReward() >= rewards.size()) continue;
-      if (assigment.fullReward) stats = stats.add(new Stats(0, 1, 0));
-      else stats = stats.add(new Stats(rewards.get(assigment.getReward())));
+      if (assigment.fullReward) stats.addReward();
+      else stats.add(rewards.get(assigment.getReward()));
     }
-    return stats;
+    return stats.toStats();
   }
 }
 
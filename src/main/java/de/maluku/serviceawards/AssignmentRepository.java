@@ -0,0 +1,34 @@
+package de.maluku.serviceawards;
+
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface AssignmentRepository extends MongoRepository<Assigment, UUID> {
+  List<Assigment> findByUserIdAndSeason(String userId, String season);
+
+  List<Assigment> findByUserIdAndSeasonAndReward(String userId, String season, int reward);
+
+  boolean existsByUserIdAndEntryAsPlayer(String userId, UUID entryAsPlayer);
+
+  @Aggregation(pipeline = {
+    "{ $match: { userId: ?0 } }",
+    "{ $unionWith: { coll: 'archivedAssignments', pipeline: [ { $match: { userId: ?0 } } ] } }",
+    "{ $project: { _id: 0, character: ['$rewardCharacter', '$levelUpCharacter'] } }",
+    "{ $unwind: '$character' }",
+    "{ $match: { character: { $ne: null } } }",
+    "{ $group: { _id: '$character' } }",
+    "{ $sort: { _id: 1 } }"
+  })
+  List<String> findCharacters(String userId);
+
+  @Aggregation(pipeline = {
+    "{ $unionWith: 'archivedAssignments' }",
+    "{ $group: { _id: { season: '$season', reward: '$reward' }, claimed: { $sum: 1 }, fullRewards: { $sum: { $cond: ['$fullReward', 1, 0] } } } }",
+    "{ $project: { _id: 0, season: '$_id.season', reward: '$_id.reward', claimed: 1, fullRewards: 1 } }",
+    "{ $sort: { season: 1, reward: 1 } }"
+  })
+  List<RewardClaims> findRewardClaims();
+}
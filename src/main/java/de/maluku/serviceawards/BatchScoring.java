@@ -0,0 +1,272 @@
+package de.maluku.serviceawards;
+
+import lombok.extern.java.Log;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Recomputes the summaries of a whole season at once, for when its scoring rules or reward costs change. Log entries
+ * are streamed in user order with only their counters projected, packed into columnar {@link Block blocks} and summed
+ * per user on the common fork/join pool, with the Vector API kernel when available (see
+ * {@link ColumnSums#preferred()}). Scores are linear, so each user's counter sums are scored once with the season's
+ * {@link Scoring}. Entries used as player are left out by a per-row $lookup, and assignments are streamed in user
+ * order too, so only one user's rows are held at a time.
+ * <p>
+ * Summaries are written back with unordered bulk updates that only apply if the summary's
+ * {@link SeasonSummary#getRevision() revision} is still the one read before the scan; missing summaries are only
+ * inserted if still absent. Users whose summary got a delta meanwhile are returned to be rebuilt one by one.
+ */
+@Log
+@Component
+public class BatchScoring {
+  static final int BLOCK_SIZE = 4096;
+  static final int WRITE_BATCH = 1000;
+  private static final ColumnSums KERNEL = ColumnSums.preferred();
+  private static final Activity[] ACTIVITIES = Activity.values();
+
+  private final MongoTemplate mongoTemplate;
+
+  public BatchScoring(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+    log.info("Batch scoring uses the " + (KERNEL == ColumnSums.SCALAR ? "scalar" : "vector") + " kernel");
+  }
+
+  /**
+   * @return the users whose summary changed while the season was rescored, and which may not have been written
+   */
+  public Set<String> rescore(Season season) {
+    long started = System.nanoTime();
+    Map<String, Long> revisions = revisions(season);
+    Map<String, Stats> used = used(season);
+    Map<String, int[]> sums;
+    try (Stream<Document> stream = mongoTemplate.aggregateStream(earning(season), season.isArchived() ? SeasonArchive.LOG_ENTRIES : mongoTemplate.getCollectionName(LogEntry.class), Document.class)) {
+      sums = sum(stream::iterator, row -> row.getString("userId"), Activity::read, KERNEL);
+    }
+    int users = write(season, sums, used, revisions);
+    Set<String> changed = new TreeSet<>();
+    revisions(season).forEach((userId, revision) -> {
+      if (!revision.equals(revisions.getOrDefault(userId, 0L))) {
+        changed.add(userId);
+      }
+    });
+    log.info("Rescored season " + season.getId() + " for " + users + " users in " + (System.nanoTime() - started) / 1_000_000 + " ms, " + changed.size() + " changed meanwhile");
+    return changed;
+  }
+
+  /**
+   * The season's log entries in user order, without those used as player, projected to their counters.
+   */
+  private static Aggregation earning(Season season) {
+    String[] fields = new String[ACTIVITIES.length + 1];
+    fields[0] = "userId";
+    for (Activity activity : ACTIVITIES) {
+      fields[activity.ordinal() + 1] = activity.field;
+    }
+    return Aggregation.newAggregation(
+      Aggregation.match(where("season").is(season.getId())),
+      Aggregation.sort(Sort.by("userId")),
+      SeasonReports.stage(season.isArchived() ? LogEntryRepository.LOOKUP_ARCHIVED_USED_AS_PLAYER : LogEntryRepository.LOOKUP_USED_AS_PLAYER),
+      SeasonReports.stage(LogEntryRepository.UNUSED_AS_PLAYER),
+      Aggregation.project(fields))
+      .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+  }
+
+  /**
+   * Prices each user's assignments, streamed in user order so one user's assignments are held at a time.
+   */
+  private Map<String, Stats> used(Season season) {
+    Map<String, Stats> used = new HashMap<>();
+    List<Assigment> user = new ArrayList<>();
+    Query rows = query(where("season").is(season.getId())).with(Sort.by("userId"));
+    try (Stream<Assigment> stream = mongoTemplate.stream(rows, Assigment.class, season.isArchived() ? SeasonArchive.ASSIGNMENTS : mongoTemplate.getCollectionName(Assigment.class))) {
+      stream.forEach(assigment -> {
+        if (!user.isEmpty() && !user.get(0).getUserId().equals(assigment.getUserId())) {
+          used.put(user.get(0).getUserId(), Assigment.getStats(season, user));
+          user.clear();
+        }
+        user.add(assigment);
+      });
+    }
+    if (!user.isEmpty()) {
+      used.put(user.get(0).getUserId(), Assigment.getStats(season, user));
+    }
+    return used;
+  }
+
+  private Map<String, Long> revisions(Season season) {
+    Query summaries = query(where("season").is(season.getId()));
+    summaries.fields().include("userId", "revision");
+    Map<String, Long> revisions = new HashMap<>();
+    for (Document summary : mongoTemplate.find(summaries, Document.class, mongoTemplate.getCollectionName(SeasonSummary.class))) {
+      revisions.put(summary.getString("userId"), summary.get("revision") instanceof Number number ? number.longValue() : 0L);
+    }
+    return revisions;
+  }
+
+  /**
+   * Packs rows given in user order into blocks and sums their counters per user, one block per fork/join task. At
+   * most two blocks per worker are in flight and merged blocks are reused, so memory stays bounded however many rows
+   * there are.
+   *
+   * @param counters writes a row's counters into a vector in {@link Activity} order
+   * @return the counter sums per user, in row order
+   */
+  static <T> Map<String, int[]> sum(Iterable<T> rows, Function<T, String> userId, BiConsumer<T, int[]> counters, ColumnSums kernel) {
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    Map<String, int[]> sums = new LinkedHashMap<>();
+    Deque<ForkJoinTask<Block>> pending = new ArrayDeque<>();
+    Deque<Block> free = new ArrayDeque<>();
+    int[] row = new int[Activity.COUNT];
+    Block block = new Block(BLOCK_SIZE);
+    for (T next : rows) {
+      counters.accept(next, row);
+      block.add(userId.apply(next), row);
+      if (block.full()) {
+        Block full = block;
+        pending.add(pool.submit(() -> full.sum(kernel)));
+        if (pending.size() > 2 * pool.getParallelism()) {
+          free.push(pending.poll().join().mergeInto(sums));
+        }
+        block = free.isEmpty() ? new Block(BLOCK_SIZE) : free.pop();
+      }
+    }
+    while (!pending.isEmpty()) {
+      pending.poll().join().mergeInto(sums);
+    }
+    block.sum(kernel).mergeInto(sums);
+    return sums;
+  }
+
+  private int write(Season season, Map<String, int[]> sums, Map<String, Stats> used, Map<String, Long> revisions) {
+    Set<String> users = new TreeSet<>(sums.keySet());
+    users.addAll(used.keySet());
+    users.addAll(revisions.keySet());
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SeasonSummary.class);
+    int batched = 0;
+    for (String userId : users) {
+      Stats spent = used.getOrDefault(userId, new Stats());
+      SeasonSummary summary = SeasonSummary.builder()
+        .id(SeasonSummary.key(userId, season.getId()))
+        .userId(userId)
+        .season(season.getId())
+        .earned(season.scoring(), sums.getOrDefault(userId, new int[Activity.COUNT]))
+        .usedHours(spent.getServicehours())
+        .usedRewards(spent.getRewards())
+        .build();
+      Query current = query(where("_id").is(summary.getId()));
+      Update update = new Update();
+      Long revision = revisions.get(userId);
+      if (revision == null) {
+        summary.totals().forEach(update::setOnInsert);
+        bulk.upsert(current, update);
+      }
+      else {
+        summary.totals().forEach(update::set);
+        bulk.updateOne(current.addCriteria(revision == 0 ? where("revision").in(0L, null) : where("revision").is(revision)), update);
+      }
+      if (++batched == WRITE_BATCH) {
+        bulk.execute();
+        bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SeasonSummary.class);
+        batched = 0;
+      }
+    }
+    if (batched > 0) {
+      bulk.execute();
+    }
+    return users.size();
+  }
+
+  /**
+   * Up to {@code capacity} rows stored column by column, one int array per {@link Activity}, with consecutive rows
+   * of the same user forming a segment.
+   */
+  static final class Block {
+    private final int[][] columns;
+    private final String[] users;
+    private final int[] ends;
+    private final List<String> summedUsers = new ArrayList<>();
+    private final List<int[]> summed = new ArrayList<>();
+    private int rows;
+    private int segments;
+
+    Block(int capacity) {
+      columns = new int[Activity.COUNT][capacity];
+      users = new String[capacity];
+      ends = new int[capacity];
+    }
+
+    boolean full() {
+      return rows == ends.length;
+    }
+
+    void add(String userId, int[] counters) {
+      if (segments == 0 || !Objects.equals(users[segments - 1], userId)) {
+        users[segments++] = userId;
+      }
+      for (int a = 0; a < counters.length; a++) {
+        columns[a][rows] = counters[a];
+      }
+      ends[segments - 1] = ++rows;
+    }
+
+    Block sum(ColumnSums kernel) {
+      int from = 0;
+      for (int s = 0; s < segments; s++) {
+        int[] total = new int[Activity.COUNT];
+        for (int a = 0; a < Activity.COUNT; a++) {
+          total[a] = kernel.sum(columns[a], from, ends[s]);
+        }
+        summedUsers.add(users[s]);
+        summed.add(total);
+        from = ends[s];
+      }
+      return this;
+    }
+
+    /**
+     * Adds the segment sums to {@code sums}, where a user split across blocks is summed up, and empties the block
+     * for reuse.
+     */
+    Block mergeInto(Map<String, int[]> sums) {
+      for (int s = 0; s < summed.size(); s++) {
+        sums.merge(summedUsers.get(s), summed.get(s), (a, b) -> {
+          for (int i = 0; i < a.length; i++) {
+            a[i] += b[i];
+          }
+          return a;
+        });
+      }
+      summedUsers.clear();
+      summed.clear();
+      rows = 0;
+      segments = 0;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package de.maluku.serviceawards;
+
+/**
+ * Sums a range of an int column, the kernel of {@link BatchScoring}.
+ */
+interface ColumnSums {
+  ColumnSums SCALAR = (column, from, to) -> {
+    int sum = 0;
+    for (int i = from; i < to; i++) {
+      sum += column[i];
+    }
+    return sum;
+  };
+
+  int sum(int[] column, int from, int to);
+
+  /**
+   * The Vector API kernel if it is on the classpath and the JVM was started with
+   * {@code --add-modules jdk.incubator.vector}, else {@link #SCALAR}. The kernel lives in the {@code vector} source
+   * set, which only the benchmarks put on their classpath, and is loaded by name so the application never links
+   * against the incubating module.
+   */
+  static ColumnSums preferred() {
+    try {
+      return (ColumnSums) Class.forName(ColumnSums.class.getPackageName() + ".VectorColumnSums").getDeclaredConstructor().newInstance();
+    }
+    catch (ReflectiveOperationException | LinkageError e) {
+      return SCALAR;
+    }
+  }
+}
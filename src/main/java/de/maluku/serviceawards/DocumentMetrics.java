@@ -0,0 +1,73 @@
+package de.maluku.serviceawards;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records the BSON size of loaded user documents and season overviews, and how many log entries and assignments
+ * each overview carries. Sizes are measured by encoding the document again, so only a sample of the loads is
+ * measured ({@code serviceawards.metrics.size-sample}, a fraction between 0 and 1).
+ */
+@Component
+public class DocumentMetrics {
+  private static final DocumentCodec CODEC = new DocumentCodec();
+
+  private final DistributionSummary userSize;
+  private final DistributionSummary seasonSize;
+  private final DistributionSummary logs;
+  private final DistributionSummary assignments;
+  private final double sample;
+
+  public DocumentMetrics(MeterRegistry registry, @Value("${serviceawards.metrics.size-sample:0.01}") double sample) {
+    this.sample = sample;
+    userSize = size(registry, "user");
+    seasonSize = size(registry, "season");
+    logs = DistributionSummary.builder("serviceawards.season.rows").tag("kind", "logs").register(registry);
+    assignments = DistributionSummary.builder("serviceawards.season.rows").tag("kind", "assignments").register(registry);
+  }
+
+  private static DistributionSummary size(MeterRegistry registry, String kind) {
+    return DistributionSummary.builder("serviceawards.document.size").baseUnit("bytes").tag("kind", kind).register(registry);
+  }
+
+  @EventListener
+  public void onLoad(AfterLoadEvent<?> event) {
+    if (User.class.equals(event.getType())) {
+      if (sampled()) {
+        userSize.record(bsonSize(event.getDocument()));
+      }
+    }
+    else if (UserSeason.class.equals(event.getType())) {
+      Document document = event.getDocument();
+      if (sampled()) {
+        seasonSize.record(bsonSize(document));
+      }
+      logs.record(document.getList("logEntries", Object.class, List.of()).size());
+      assignments.record(document.getList("assignments", Object.class, List.of()).size());
+    }
+  }
+
+  private boolean sampled() {
+    return sample > 0 && ThreadLocalRandom.current().nextDouble() < sample;
+  }
+
+  private static int bsonSize(Document document) {
+    if (document == null) return 0;
+    try (BasicOutputBuffer buffer = new BasicOutputBuffer(); BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+      CODEC.encode(writer, document, EncoderContext.builder().build());
+      return buffer.getSize();
+    }
+  }
+}
@@ -5,25 +5,33 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
+@Document("logEntries")
+@CompoundIndex(name = "user_season_date", def = "{'userId': 1, 'season': 1, 'date': -1, '_id': -1}")
 @Getter
 @Setter
 @NoArgsConstructor
 @Builder
 @AllArgsConstructor
 public class LogEntry implements Comparable<LogEntry> {
+  @Id
   @Builder.Default
   private UUID id = UUID.randomUUID();
+  private String userId;
   private String season;
   private Date date;
   private String title;
@@ -50,32 +58,68 @@ public class LogEntry implements Comparable<LogEntry> {
     return o.date.compareTo(this.date);
   }
 
-  public int getTotalFullHours() {
-    return addServiceHours + dm + prepTime + newPlayers + mentoring + streaming;
+  /**
+   * The activity counters as a vector in {@link Activity} order, to be scored by a season's {@link Scoring}.
+   */
+  public int[] counters() {
+    int[] counters = new int[Activity.COUNT];
+    addTo(counters);
+    return counters;
   }
 
-  public int getTotalQuarterHours() {
-    return safetyTools + 2*learnToPlay + 2*reviewing;
+  /**
+   * Adds the activity counters to {@code totals}, a vector in {@link Activity} order.
+   */
+  void addTo(int[] totals) {
+    totals[Activity.ADD_SERVICE_HOURS.ordinal()] += addServiceHours;
+    totals[Activity.ADD_FULL_REWARDS.ordinal()] += addFullRewards;
+    totals[Activity.DM.ordinal()] += dm;
+    totals[Activity.PREP_TIME.ordinal()] += prepTime;
+    totals[Activity.SAFETY_TOOLS.ordinal()] += safetyTools;
+    totals[Activity.NEW_PLAYERS.ordinal()] += newPlayers;
+    totals[Activity.MENTORING.ordinal()] += mentoring;
+    totals[Activity.REVIEWING.ordinal()] += reviewing;
+    totals[Activity.LEARN_TO_PLAY.ordinal()] += learnToPlay;
+    totals[Activity.CODE_OF_CONDUCT.ordinal()] += codeOfConduct;
+    totals[Activity.STREAMING.ordinal()] += streaming;
+    totals[Activity.EVENT_ORGA.ordinal()] += eventOrga;
+    totals[Activity.EVENT_STAFFING.ordinal()] += eventStaffing;
   }
 
   public ZonedDateTime getDateTime() {
     return date != null ? date.toInstant().atZone(ZoneId.ofOffset("UTC", ZoneOffset.UTC)) : null;
   }
 
-  public String getTotalHours() {
-    int quarts = getTotalQuarterHours();
-    int hours = getTotalFullHours() + quarts / 4;
-    quarts %= 4;
-    return hours + (quarts == 1 ? "¼" : quarts == 2 ? "½"  : quarts == 3 ? "¾" : "");
+  public static Stats getStats(Season season, List<LogEntry> entries, List<Assigment> assigments) {
+    StatsAccumulator stats = new StatsAccumulator(StatsAccumulator.EARNED, season.scoring());
+    forScored(season, entries, assigments, stats::add);
+    return stats.toStats();
   }
 
-  public int getTotalRewards() {
-    return addFullRewards + codeOfConduct + eventOrga + eventStaffing;
+  /**
+   * The activity counters summed over the entries {@link #getStats} scores, in {@link Activity} order.
+   */
+  public static int[] sum(Season season, List<LogEntry> entries, List<Assigment> assigments) {
+    int[] totals = new int[Activity.COUNT];
+    forScored(season, entries, assigments, entry -> entry.addTo(totals));
+    return totals;
   }
 
-  public static Stats getStats(String season, List<LogEntry> entries, List<Assigment> assigments) {
-    Set<UUID> skipped = assigments.stream().filter(a->a.getEntryAsPlayer() != null && Objects.equals(season, a.getSeason())).map(Assigment::getEntryAsPlayer).collect(Collectors.toSet());
-    return entries.stream().filter(l-> Objects.equals(l.getSeason(), season)).filter(l->!skipped.contains(l.getId())).map(Stats::new).reduce(Stats::add).orElse(new Stats());
+  /**
+   * Passes the season's entries to {@code action}, except those assigned to a reward as player.
+   */
+  private static void forScored(Season season, List<LogEntry> entries, List<Assigment> assigments, Consumer<LogEntry> action) {
+    Set<UUID> skipped = null;
+    for (final Assigment assigment : assigments) {
+      if (assigment.getEntryAsPlayer() == null || !Objects.equals(season.getId(), assigment.getSeason())) continue;
+      if (skipped == null) skipped = new HashSet<>();
+      skipped.add(assigment.getEntryAsPlayer());
+    }
+    for (final LogEntry entry : entries) {
+      if (!Objects.equals(entry.getSeason(), season.getId())) continue;
+      if (skipped != null && skipped.contains(entry.getId())) continue;
+      action.accept(entry);
+    }
   }
 }
 
@@ -0,0 +1,40 @@
+package de.maluku.serviceawards;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface LogEntryRepository extends MongoRepository<LogEntry, UUID> {
+  String LOOKUP_USED_AS_PLAYER = "{ $lookup: { from: 'assignments', let: { user: '$userId', entry: '$_id' }, pipeline: [ { $match: { $expr: { $and: [ { $eq: ['$userId', '$$user'] }, { $eq: ['$entryAsPlayer', '$$entry'] } ] } } }, { $limit: 1 }, { $project: { _id: 1 } } ], as: 'usedAsPlayer' } }";
+  String LOOKUP_ARCHIVED_USED_AS_PLAYER = "{ $lookup: { from: 'archivedAssignments', let: { user: '$userId', entry: '$_id' }, pipeline: [ { $match: { $expr: { $and: [ { $eq: ['$userId', '$$user'] }, { $eq: ['$entryAsPlayer', '$$entry'] } ] } } }, { $limit: 1 }, { $project: { _id: 1 } } ], as: 'usedAsPlayer' } }";
+  String UNUSED_AS_PLAYER = "{ $match: { usedAsPlayer: { $size: 0 } } }";
+
+  List<LogEntry> findByUserIdAndSeason(String userId, String season);
+
+  Optional<LogEntry> findByIdAndUserId(UUID id, String userId);
+
+  List<LogEntry> findByUserIdAndSeasonOrderByDateDescIdDesc(String userId, String season, Limit limit);
+
+  /**
+   * The entries following the cursor {@code (date, id)} in {@code date desc, _id desc} order, undated entries last.
+   */
+  @Query(value = "{ userId: ?0, season: ?1, $or: [ { date: { $lt: ?2 } }, { date: ?2, _id: { $lt: ?3 } }, { date: null } ] }", sort = "{ date: -1, _id: -1 }")
+  List<LogEntry> findPageAfter(String userId, String season, Date date, UUID id, Limit limit);
+
+  @Query(value = "{ userId: ?0, season: ?1, date: null, _id: { $lt: ?2 } }", sort = "{ date: -1, _id: -1 }")
+  List<LogEntry> findUndatedPageAfter(String userId, String season, UUID id, Limit limit);
+
+  @Aggregation(pipeline = {
+    "{ $match: { userId: ?0, location: { $ne: null } } }",
+    "{ $unionWith: { coll: 'archivedLogEntries', pipeline: [ { $match: { userId: ?0, location: { $ne: null } } } ] } }",
+    "{ $group: { _id: '$location' } }",
+    "{ $sort: { _id: 1 } }"
+  })
+  List<String> findLocations(String userId);
+}
@@ -0,0 +1,273 @@
+package de.maluku.serviceawards;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+/**
+ * Writes a user's log entries, assignments and per-season stats to a stream, reading rows from Mongo cursors so
+ * memory use does not grow with the amount of data. NDJSON carries every part with a {@code type} field per line; CSV
+ * carries one part per file. The log CSV uses the column names {@link LogImport} reads, so it can be imported again.
+ * Rows of archived seasons are read from the {@link SeasonArchive archive} ahead of the current ones.
+ */
+@Component
+@AllArgsConstructor
+public class LogExport {
+  private static final List<Column<LogEntry>> LOG_COLUMNS = List.of(
+    new Column<>("userId", LogEntry::getUserId),
+    new Column<>("id", LogEntry::getId),
+    new Column<>("season", LogEntry::getSeason),
+    new Column<>("date", LogEntry::getDate),
+    new Column<>("title", LogEntry::getTitle),
+    new Column<>("notes", LogEntry::getNotes),
+    new Column<>("location", LogEntry::getLocation),
+    new Column<>("dm", LogEntry::getDm),
+    new Column<>("prepTime", LogEntry::getPrepTime),
+    new Column<>("safetyTools", LogEntry::getSafetyTools),
+    new Column<>("newPlayers", LogEntry::getNewPlayers),
+    new Column<>("mentoring", LogEntry::getMentoring),
+    new Column<>("reviewing", LogEntry::getReviewing),
+    new Column<>("learnToPlay", LogEntry::getLearnToPlay),
+    new Column<>("codeOfConduct", LogEntry::getCodeOfConduct),
+    new Column<>("streaming", LogEntry::getStreaming),
+    new Column<>("eventOrga", LogEntry::getEventOrga),
+    new Column<>("eventStaffing", LogEntry::getEventStaffing),
+    new Column<>("addServiceHours", LogEntry::getAddServiceHours),
+    new Column<>("addFullRewards", LogEntry::getAddFullRewards));
+
+  private static final List<Column<Assigment>> ASSIGNMENT_COLUMNS = List.of(
+    new Column<>("userId", Assigment::getUserId),
+    new Column<>("id", Assigment::getId),
+    new Column<>("season", Assigment::getSeason),
+    new Column<>("reward", Assigment::getReward),
+    new Column<>("title", Assigment::getTitle),
+    new Column<>("note", Assigment::getNote),
+    new Column<>("rewardCharacter", Assigment::getRewardCharacter),
+    new Column<>("assignedReward", Assigment::getAssignedReward),
+    new Column<>("levelUpCharacter", Assigment::getLevelUpCharacter),
+    new Column<>("assignedLevel", Assigment::getAssignedLevel),
+    new Column<>("entryAsPlayer", Assigment::getEntryAsPlayer),
+    new Column<>("fullReward", Assigment::isFullReward));
+
+  private static final List<Column<SeasonSummary>> STATS_COLUMNS = List.of(
+    new Column<>("userId", SeasonSummary::getUserId),
+    new Column<>("season", SeasonSummary::getSeason),
+    new Column<>("earnedHours", s -> s.earned().getServicehours()),
+    new Column<>("earnedQuarters", s -> s.earned().getQuarters()),
+    new Column<>("earnedRewards", s -> s.earned().getRewards()),
+    new Column<>("usedHours", s -> s.used().getServicehours()),
+    new Column<>("usedRewards", s -> s.used().getRewards()));
+
+  private final MongoTemplate mongoTemplate;
+  private final SeasonSummaries summaries;
+  private final ObjectMapper objectMapper;
+
+  public enum Format {
+    NDJSON("application/x-ndjson", "ndjson"), CSV("text/csv", "csv");
+
+    public final String contentType;
+    public final String extension;
+
+    Format(String contentType, String extension) {
+      this.contentType = contentType;
+      this.extension = extension;
+    }
+
+    public static Format of(String name) {
+      return parse(Format.class, name);
+    }
+  }
+
+  public enum Part {
+    LOGS, ASSIGNMENTS, STATS;
+
+    /**
+     * @return the requested part, or {@code null} for all of them
+     */
+    public static Part of(String name) {
+      return name == null || name.isBlank() ? null : parse(Part.class, name);
+    }
+  }
+
+  /**
+   * @param part the part to export, {@code null} for all; CSV defaults to {@link Part#LOGS}
+   */
+  public void user(String userId, Format format, Part part, OutputStream out) throws IOException {
+    try (Sink sink = sink(format, out)) {
+      write(userId, format == Format.CSV && part == null ? Part.LOGS : part, sink);
+    }
+  }
+
+  /**
+   * Exports every user in turn, in user id order.
+   */
+  public void all(Format format, Part part, OutputStream out) throws IOException {
+    Query users = new Query().with(Sort.by("_id"));
+    users.fields().include("_id");
+    try (Sink sink = sink(format, out);
+         Stream<Document> ids = mongoTemplate.stream(users, Document.class, mongoTemplate.getCollectionName(User.class))) {
+      Part selected = format == Format.CSV && part == null ? Part.LOGS : part;
+      for (Document id : (Iterable<Document>) ids::iterator) {
+        write(id.getString("_id"), selected, sink);
+      }
+    }
+  }
+
+  private void write(String userId, Part part, Sink sink) throws IOException {
+    if (part == null || part == Part.LOGS) {
+      Query logs = query(where("userId").is(userId)).with(Sort.by("season").and(Sort.by(Sort.Direction.DESC, "date", "_id")));
+      for (String collection : List.of(SeasonArchive.LOG_ENTRIES, mongoTemplate.getCollectionName(LogEntry.class))) {
+        try (Stream<LogEntry> rows = mongoTemplate.stream(logs, LogEntry.class, collection)) {
+          for (LogEntry row : (Iterable<LogEntry>) rows::iterator) {
+            sink.row("log", LOG_COLUMNS, row);
+          }
+        }
+      }
+    }
+    if (part == null || part == Part.ASSIGNMENTS) {
+      Query assignments = query(where("userId").is(userId)).with(Sort.by("season", "reward"));
+      for (String collection : List.of(SeasonArchive.ASSIGNMENTS, mongoTemplate.getCollectionName(Assigment.class))) {
+        try (Stream<Assigment> rows = mongoTemplate.stream(assignments, Assigment.class, collection)) {
+          for (Assigment row : (Iterable<Assigment>) rows::iterator) {
+            sink.row("assignment", ASSIGNMENT_COLUMNS, row);
+          }
+        }
+      }
+    }
+    if (part == null || part == Part.STATS) {
+      Query rows = query(where("userId").is(userId));
+      Set<String> seasons = new TreeSet<>(mongoTemplate.findDistinct(rows, "season", LogEntry.class, String.class));
+      seasons.addAll(mongoTemplate.findDistinct(rows, "season", Assigment.class, String.class));
+      seasons.addAll(mongoTemplate.findDistinct(rows, "season", SeasonArchive.LOG_ENTRIES, LogEntry.class, String.class));
+      seasons.addAll(mongoTemplate.findDistinct(rows, "season", SeasonArchive.ASSIGNMENTS, Assigment.class, String.class));
+      for (String season : seasons) {
+        sink.row("stats", STATS_COLUMNS, summaries.get(userId, season));
+      }
+    }
+  }
+
+  private Sink sink(Format format, OutputStream out) throws IOException {
+    return format == Format.CSV ? new CsvSink(out) : new NdjsonSink(out);
+  }
+
+  private static <E extends Enum<E>> E parse(Class<E> type, String name) {
+    try {
+      return Enum.valueOf(type, name.toUpperCase(Locale.ROOT));
+    }
+    catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(BAD_REQUEST, "Unknown " + type.getSimpleName().toLowerCase(Locale.ROOT) + " " + name);
+    }
+  }
+
+  private static Object value(Object value) {
+    if (value instanceof Date date) return date.toInstant().toString();
+    if (value instanceof UUID id) return id.toString();
+    return value;
+  }
+
+  private record Column<T>(String name, Function<T, Object> value) {
+  }
+
+  private interface Sink extends AutoCloseable {
+    <T> void row(String type, List<Column<T>> columns, T row) throws IOException;
+
+    @Override
+    void close() throws IOException;
+  }
+
+  private class NdjsonSink implements Sink {
+    private final JsonGenerator json;
+
+    NdjsonSink(OutputStream out) throws IOException {
+      json = objectMapper.getFactory().createGenerator(out)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .setRootValueSeparator(new SerializedString("\n"));
+    }
+
+    @Override
+    public <T> void row(String type, List<Column<T>> columns, T row) throws IOException {
+      json.writeStartObject();
+      json.writeStringField("type", type);
+      for (Column<T> column : columns) {
+        json.writeFieldName(column.name());
+        json.writeObject(value(column.value().apply(row)));
+      }
+      json.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+      json.writeRaw('\n');
+      json.close();
+    }
+  }
+
+  private static class CsvSink implements Sink {
+    private final Writer csv;
+    private boolean header;
+
+    CsvSink(OutputStream out) {
+      csv = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+    }
+
+    @Override
+    public <T> void row(String type, List<Column<T>> columns, T row) throws IOException {
+      if (!header) {
+        header = true;
+        for (int i = 0; i < columns.size(); i++) {
+          field(i, columns.get(i).name());
+        }
+        csv.write("\r\n");
+      }
+      for (int i = 0; i < columns.size(); i++) {
+        field(i, value(columns.get(i).value().apply(row)));
+      }
+      csv.write("\r\n");
+    }
+
+    private void field(int index, Object value) throws IOException {
+      if (index > 0) csv.write(',');
+      if (value == null) return;
+      String text = value.toString();
+      if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+        csv.write(text);
+      }
+      else {
+        csv.write('"');
+        csv.write(text.replace("\"", "\"\""));
+        csv.write('"');
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      csv.flush();
+    }
+  }
+}
@@ -0,0 +1,329 @@
+package de.maluku.serviceawards;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Map.entry;
+
+/**
+ * Imports log entries from a CSV or JSON upload without holding the file in memory. Rows are read one at a time,
+ * matched to {@link LogEntry} fields by column name (case, spaces and punctuation ignored) and to the season their
+ * date falls into, then written in batches of {@value #BATCH_SIZE}.
+ * <p>
+ * An imported entry's id is derived from its content, so a row that was already imported is stored only once. Rows
+ * of the importing user that carry an {@code id}, as {@link LogExport} writes them, keep that id instead, so importing
+ * an export again adds nothing. Rows without a season, in an archived season, or with a number, date or id that can't
+ * be read, are skipped. A row that names its season is only matched by date if the column is empty, never when the
+ * named season is unknown.
+ */
+@Component
+@AllArgsConstructor
+public class LogImport {
+  static final int BATCH_SIZE = 500;
+
+  private static final Map<String, ObjIntConsumer<LogEntry>> HOURS = Map.ofEntries(
+    entry("dm", LogEntry::setDm),
+    entry("prep", LogEntry::setPrepTime),
+    entry("preptime", LogEntry::setPrepTime),
+    entry("safetytools", LogEntry::setSafetyTools),
+    entry("newplayers", LogEntry::setNewPlayers),
+    entry("mentoring", LogEntry::setMentoring),
+    entry("reviewing", LogEntry::setReviewing),
+    entry("learntoplay", LogEntry::setLearnToPlay),
+    entry("codeofconduct", LogEntry::setCodeOfConduct),
+    entry("streaming", LogEntry::setStreaming),
+    entry("eventorga", LogEntry::setEventOrga),
+    entry("staffing", LogEntry::setEventStaffing),
+    entry("eventstaffing", LogEntry::setEventStaffing),
+    entry("addhours", LogEntry::setAddServiceHours),
+    entry("addservicehours", LogEntry::setAddServiceHours),
+    entry("addrewards", LogEntry::setAddFullRewards),
+    entry("addfullrewards", LogEntry::setAddFullRewards));
+
+  private final SeasonRepository seasonRepository;
+  private final LogMutations logMutations;
+  private final SeasonSummaries summaries;
+  private final ObjectMapper objectMapper;
+
+  public enum Format {
+    CSV, JSON;
+
+    public static Format of(String filename, String contentType) {
+      String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+      boolean json = name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson")
+        || (contentType != null && contentType.contains("json"));
+      return json ? JSON : CSV;
+    }
+  }
+
+  public record Progress(int rows, int imported, int duplicates, int skipped, boolean done) {
+  }
+
+  /**
+   * Imports all rows of {@code in} for {@code userId}. JSON may be a top-level array of objects or one object per
+   * line. {@code progress} is called after each batch and once more when done.
+   */
+  public Progress run(String userId, InputStream in, Format format, Consumer<Progress> progress) throws IOException {
+    Run run = new Run(userId, seasonRepository.findAll().stream().filter(season -> !season.isArchived()).toList(), progress);
+    if (format == Format.JSON) {
+      try (MappingIterator<Map<String, Object>> rows = objectMapper.readerFor(new TypeReference<Map<String, Object>>() {}).readValues(in)) {
+        while (rows.hasNext()) {
+          run.add(rows.next());
+        }
+      }
+    }
+    else {
+      try (CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(in, UTF_8)))) {
+        List<String> header = csv.next();
+        for (List<String> record = csv.next(); header != null && record != null; record = csv.next()) {
+          if (record.stream().allMatch(String::isBlank)) continue;
+          Map<String, Object> row = new LinkedHashMap<>();
+          for (int i = 0; i < Math.min(header.size(), record.size()); i++) {
+            row.put(header.get(i), record.get(i));
+          }
+          run.add(row);
+        }
+      }
+    }
+    return run.finish();
+  }
+
+  private class Run {
+    private final String userId;
+    private final List<Season> seasons;
+    private final Consumer<Progress> progress;
+    private final List<LogEntry> batch = new ArrayList<>(BATCH_SIZE);
+    private final Set<String> touched = new HashSet<>();
+    private int rows;
+    private int imported;
+    private int duplicates;
+    private int skipped;
+
+    Run(String userId, List<Season> seasons, Consumer<Progress> progress) {
+      this.userId = userId;
+      this.seasons = seasons;
+      this.progress = progress;
+    }
+
+    void add(Map<String, ?> row) {
+      rows++;
+      LogEntry entry = toEntry(row);
+      if (entry == null) {
+        skipped++;
+      }
+      else {
+        batch.add(entry);
+      }
+      if (batch.size() == BATCH_SIZE) {
+        flush();
+      }
+    }
+
+    Progress finish() {
+      if (!batch.isEmpty()) {
+        flush();
+      }
+      touched.forEach(season -> summaries.rebuild(userId, season));
+      Progress done = new Progress(rows, imported, duplicates, skipped, true);
+      progress.accept(done);
+      return done;
+    }
+
+    private void flush() {
+      int inserted = logMutations.addLogs(userId, batch);
+      imported += inserted;
+      duplicates += batch.size() - inserted;
+      batch.forEach(e -> touched.add(e.getSeason()));
+      batch.clear();
+      progress.accept(new Progress(rows, imported, duplicates, skipped, false));
+    }
+
+    private LogEntry toEntry(Map<String, ?> row) {
+      LogEntry entry = new LogEntry();
+      entry.setUserId(userId);
+      String season = null;
+      String owner = null;
+      UUID id = null;
+      try {
+        for (Map.Entry<String, ?> field : row.entrySet()) {
+          Object value = field.getValue();
+          if (value == null || value.toString().isBlank()) continue;
+          String key = field.getKey().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+          ObjIntConsumer<LogEntry> hours = HOURS.get(key);
+          if (hours != null) {
+            hours.accept(entry, value instanceof Number n ? n.intValue() : Integer.parseInt(value.toString().trim()));
+            continue;
+          }
+          switch (key) {
+            case "date" -> entry.setDate(parseDate(value));
+            case "title" -> entry.setTitle(value.toString().trim());
+            case "notes" -> entry.setNotes(value.toString());
+            case "location" -> entry.setLocation(value.toString().trim());
+            case "season" -> season = value.toString().trim();
+            case "userid" -> owner = value.toString().trim();
+            case "id" -> id = UUID.fromString(value.toString().trim());
+            default -> { }
+          }
+        }
+      }
+      catch (IllegalArgumentException | DateTimeParseException e) {
+        return null;
+      }
+      entry.setSeason(seasonOf(season, entry.getDate()));
+      if (entry.getSeason() == null) {
+        return null;
+      }
+      entry.setId(id != null && (owner == null || owner.equals(userId)) ? id : contentId(entry));
+      return entry;
+    }
+
+    private String seasonOf(String id, Date date) {
+      for (Season season : seasons) {
+        if (id != null ? season.getId().equals(id)
+          : date != null && season.getStart() != null && season.getEnd() != null && !date.before(season.getStart()) && !date.after(season.getEnd())) {
+          return season.getId();
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Accepts epoch milliseconds, ISO dates, and ISO date-times with or without offset; times without offset are UTC
+   * like the entry form's.
+   */
+  static Date parseDate(Object value) {
+    if (value instanceof Number n) {
+      return new Date(n.longValue());
+    }
+    String text = value.toString().trim();
+    if (text.length() == 10) {
+      return Date.from(LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+    if (text.length() > 10 && text.charAt(10) == ' ') {
+      text = text.substring(0, 10) + 'T' + text.substring(11);
+    }
+    try {
+      return Date.from(LocalDateTime.parse(text).toInstant(ZoneOffset.UTC));
+    }
+    catch (DateTimeParseException e) {
+      return Date.from(OffsetDateTime.parse(text).toInstant());
+    }
+  }
+
+  /**
+   * A name-based UUID over everything the entry stores, so identical rows map to the same id.
+   */
+  static UUID contentId(LogEntry e) {
+    String content = String.join("\u001f", e.getUserId(), e.getSeason(),
+      e.getDate() != null ? Long.toString(e.getDate().getTime()) : "", e.getTitle(), e.getNotes(), e.getLocation(),
+      Integer.toString(e.getAddServiceHours()), Integer.toString(e.getAddFullRewards()), Integer.toString(e.getDm()),
+      Integer.toString(e.getPrepTime()), Integer.toString(e.getSafetyTools()), Integer.toString(e.getNewPlayers()),
+      Integer.toString(e.getMentoring()), Integer.toString(e.getReviewing()), Integer.toString(e.getLearnToPlay()),
+      Integer.toString(e.getCodeOfConduct()), Integer.toString(e.getStreaming()), Integer.toString(e.getEventOrga()),
+      Integer.toString(e.getEventStaffing()));
+    return UUID.nameUUIDFromBytes(content.getBytes(UTF_8));
+  }
+
+  /**
+   * Reads RFC 4180 records one at a time; quoted fields may contain delimiters, doubled quotes and line breaks. The
+   * delimiter is {@code ;} if the header line has more of those than commas, as spreadsheets in some locales export.
+   */
+  static final class CsvReader implements AutoCloseable {
+    private final BufferedReader in;
+    private final char delimiter;
+
+    CsvReader(BufferedReader in) throws IOException {
+      this.in = in;
+      in.mark(8192);
+      String header = in.readLine();
+      in.reset();
+      if (header != null && header.startsWith("\uFEFF")) {
+        in.skip(1);
+      }
+      this.delimiter = header != null && header.chars().filter(c -> c == ';').count() > header.chars().filter(c -> c == ',').count() ? ';' : ',';
+    }
+
+    List<String> next() throws IOException {
+      int c = in.read();
+      if (c == -1) {
+        return null;
+      }
+      List<String> record = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+      for (; ; c = in.read()) {
+        if (quoted) {
+          if (c == '"' && peek() == '"') {
+            in.read();
+            field.append('"');
+          }
+          else if (c == '"' || c == -1) {
+            quoted = false;
+            if (c == -1) {
+              record.add(field.toString());
+              return record;
+            }
+          }
+          else {
+            field.append((char) c);
+          }
+        }
+        else if (c == '"') {
+          quoted = true;
+        }
+        else if (c == delimiter) {
+          record.add(field.toString());
+          field.setLength(0);
+        }
+        else if (c == '\n' || c == '\r' || c == -1) {
+          if (c == '\r' && peek() == '\n') {
+            in.read();
+          }
+          record.add(field.toString());
+          return record;
+        }
+        else {
+          field.append((char) c);
+        }
+      }
+    }
+
+    private int peek() throws IOException {
+      in.mark(1);
+      int c = in.read();
+      in.reset();
+      return c;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
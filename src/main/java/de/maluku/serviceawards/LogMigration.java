@@ -0,0 +1,69 @@
+package de.maluku.serviceawards;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.java.Log;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Moves log entries and assignments still embedded in user documents into their own collections, safe to re-run.
+ */
+@Log
+@Component
+@Order(0)
+@AllArgsConstructor
+public class LogMigration implements ApplicationRunner {
+  private final MongoTemplate mongoTemplate;
+  private final LogEntryRepository logEntryRepository;
+  private final AssignmentRepository assignmentRepository;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    String users = mongoTemplate.getCollectionName(User.class);
+    Query legacy = new Query(new Criteria().orOperator(where("logEntries").exists(true), where("assignments").exists(true)));
+    try (Stream<Document> stream = mongoTemplate.stream(legacy, Document.class, users)) {
+      stream.forEach(user -> migrate(user, users));
+    }
+  }
+
+  private void migrate(Document user, String users) {
+    String userId = user.getString("_id");
+    List<LogEntry> entries = new ArrayList<>();
+    for (Document doc : user.getList("logEntries", Document.class, List.of())) {
+      if (!doc.containsKey("_id") && doc.containsKey("id")) {
+        doc.put("_id", doc.remove("id"));
+      }
+      LogEntry entry = mongoTemplate.getConverter().read(LogEntry.class, doc);
+      entry.setUserId(userId);
+      entries.add(entry);
+    }
+    List<Assigment> assignments = new ArrayList<>();
+    List<Document> embedded = user.getList("assignments", Document.class, List.of());
+    for (int i = 0; i < embedded.size(); i++) {
+      Assigment assigment = mongoTemplate.getConverter().read(Assigment.class, embedded.get(i));
+      assigment.setId(UUID.nameUUIDFromBytes((userId + '/' + i).getBytes(StandardCharsets.UTF_8)));
+      assigment.setUserId(userId);
+      assignments.add(assigment);
+    }
+    logEntryRepository.saveAll(entries);
+    assignmentRepository.saveAll(assignments);
+    mongoTemplate.updateFirst(query(where("_id").is(userId)), new Update().unset("logEntries").unset("assignments"), users);
+    log.info("Migrated " + entries.size() + " log entries and " + assignments.size() + " assignments of " + userId);
+  }
+}
@@ -0,0 +1,218 @@
+package de.maluku.serviceawards;
+
+import lombok.AllArgsConstructor;
+import com.mongodb.ErrorCategory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+/**
+ * Targeted writes for log entries and assignments. Each call sends a single insert, $set or delete for one row,
+ * scoped to its owner, and returns the resulting row so callers don't need to read it back.
+ * <p>
+ * Every write bumps the owner's {@link User#getVersion() version}. Writes that depend on what else the user has
+ * stored take the version they validated against and claim it with a conditional increment before touching the row;
+ * if it is no longer current nothing is written and an {@link OptimisticLockingFailureException} is thrown so the
+ * caller can retry. A concurrent writer that validated against the same version fails its own claim. The version is
+ * bumped once more after the row write, so a page read between claim and write can't keep the new version's ETag.
+ * Once a write is done, its delta is applied to the user's {@link SeasonSummaries season summary}.
+ * <p>
+ * Rows of {@link Season#isArchived() archived} seasons are not written: adds are refused, and updates and deletes
+ * don't match them. The archived flag is read from Mongo rather than the season cache, so the {@link SeasonArchive}
+ * only has to wait out writes already in flight when it marks a season.
+ */
+@Component
+@AllArgsConstructor
+public class LogMutations {
+  private final MongoTemplate mongoTemplate;
+  private final SeasonSummaries summaries;
+  private final PageCache pageCache;
+
+  public LogEntry addLog(LogEntry entry) {
+    writable(entry.getSeason());
+    LogEntry saved = mongoTemplate.insert(entry);
+    touch(entry.getUserId());
+    summaries.earned(saved, 1);
+    return saved;
+  }
+
+  /**
+   * Inserts a batch of entries in one unordered bulk write. Entries whose id is already taken are left out.
+   * Summaries are not updated; the caller rebuilds them once all batches are in.
+   *
+   * @return the number of entries inserted
+   */
+  public int addLogs(String userId, List<LogEntry> entries) {
+    List<String> archived = archived();
+    entries = entries.stream().filter(entry -> !archived.contains(entry.getSeason())).toList();
+    if (entries.isEmpty()) return 0;
+    int inserted;
+    try {
+      inserted = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LogEntry.class).insert(entries).execute().getInsertedCount();
+    }
+    catch (BulkOperationException e) {
+      if (e.getErrors().stream().anyMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY)) {
+        throw e;
+      }
+      // unordered, so every entry was tried and each one left out reported its own error
+      inserted = entries.size() - e.getErrors().size();
+    }
+    if (inserted > 0) {
+      touch(userId);
+    }
+    return inserted;
+  }
+
+  public Optional<LogEntry> updateLog(String userId, UUID id, LogEntry changes) {
+    Update update = new Update()
+      .set("date", changes.getDate())
+      .set("title", changes.getTitle())
+      .set("notes", changes.getNotes())
+      .set("location", changes.getLocation())
+      .set("addServiceHours", changes.getAddServiceHours())
+      .set("addFullRewards", changes.getAddFullRewards())
+      .set("dm", changes.getDm())
+      .set("prepTime", changes.getPrepTime())
+      .set("safetyTools", changes.getSafetyTools())
+      .set("newPlayers", changes.getNewPlayers())
+      .set("mentoring", changes.getMentoring())
+      .set("reviewing", changes.getReviewing())
+      .set("learnToPlay", changes.getLearnToPlay())
+      .set("codeOfConduct", changes.getCodeOfConduct())
+      .set("streaming", changes.getStreaming())
+      .set("eventOrga", changes.getEventOrga())
+      .set("eventStaffing", changes.getEventStaffing());
+    LogEntry previous = mongoTemplate.findAndModify(open(owned(userId, id)), update, LogEntry.class);
+    if (previous == null) {
+      return Optional.empty();
+    }
+    touch(userId);
+    changes.setId(previous.getId());
+    changes.setUserId(userId);
+    changes.setSeason(previous.getSeason());
+    if (!mongoTemplate.exists(query(where("userId").is(userId).and("entryAsPlayer").is(id)), Assigment.class)) {
+      summaries.earned(previous, changes);
+    }
+    return Optional.of(changes);
+  }
+
+  public Optional<LogEntry> removeLog(String userId, UUID id, long version) {
+    claim(userId, version);
+    Optional<LogEntry> removed = Optional.ofNullable(mongoTemplate.findAndRemove(open(owned(userId, id)), LogEntry.class));
+    touch(userId);
+    removed.ifPresent(e -> {
+      summaries.earned(e, -1);
+    });
+    return removed;
+  }
+
+  public Assigment addAssignment(Assigment assigment, long version, Season season) {
+    writable(assigment.getSeason());
+    claim(assigment.getUserId(), version);
+    Assigment saved = mongoTemplate.insert(assigment);
+    touch(saved.getUserId());
+    summaries.used(season, saved, 1);
+    usedAsPlayer(saved.getUserId(), saved.getEntryAsPlayer(), -1);
+    return saved;
+  }
+
+  /**
+   * @return the assignment as it was before the update
+   */
+  public Optional<Assigment> updateAssignment(String userId, UUID id, Assigment changes, long version, Season season) {
+    Update update = new Update()
+      .set("title", changes.getTitle())
+      .set("note", changes.getNote())
+      .set("rewardCharacter", changes.getRewardCharacter())
+      .set("levelUpCharacter", changes.getLevelUpCharacter())
+      .set("assignedReward", changes.getAssignedReward())
+      .set("assignedLevel", changes.getAssignedLevel())
+      .set("entryAsPlayer", changes.getEntryAsPlayer())
+      .set("fullReward", changes.isFullReward());
+    claim(userId, version);
+    Optional<Assigment> previous = Optional.ofNullable(mongoTemplate.findAndModify(open(owned(userId, id)), update, Assigment.class));
+    touch(userId);
+    previous.ifPresent(a -> {
+      changes.setUserId(userId);
+      changes.setSeason(a.getSeason());
+      changes.setReward(a.getReward());
+      summaries.used(season, a, -1);
+      summaries.used(season, changes, 1);
+      if (!Objects.equals(a.getEntryAsPlayer(), changes.getEntryAsPlayer())) {
+        usedAsPlayer(userId, a.getEntryAsPlayer(), 1);
+        usedAsPlayer(userId, changes.getEntryAsPlayer(), -1);
+      }
+    });
+    return previous;
+  }
+
+  public Optional<Assigment> removeAssignment(String userId, UUID id, Season season) {
+    Optional<Assigment> removed = Optional.ofNullable(mongoTemplate.findAndRemove(open(owned(userId, id)), Assigment.class));
+    removed.ifPresent(a -> {
+      touch(userId);
+      summaries.used(season, a, -1);
+      usedAsPlayer(userId, a.getEntryAsPlayer(), 1);
+    });
+    return removed;
+  }
+
+  private void usedAsPlayer(String userId, UUID entry, int sign) {
+    if (entry == null) return;
+    LogEntry log = mongoTemplate.findOne(owned(userId, entry), LogEntry.class);
+    if (log != null) {
+      summaries.earned(log, sign);
+    }
+  }
+
+  private void touch(String userId) {
+    mongoTemplate.updateFirst(query(where("_id").is(userId)), new Update().inc("version", 1).currentDate("modified"), User.class);
+    pageCache.invalidate(userId);
+  }
+
+  /**
+   * Moves the user past the version the caller validated against, before the row is written. Rows are only written
+   * once this succeeded, so a lost race leaves nothing to undo.
+   */
+  private void claim(String userId, long version) {
+    Criteria current = version == 0 ? where("version").in(0L, null) : where("version").is(version);
+    if (mongoTemplate.updateFirst(query(where("_id").is(userId)).addCriteria(current), new Update().inc("version", 1), User.class).getMatchedCount() == 0) {
+      throw new OptimisticLockingFailureException("User " + userId + " was modified concurrently");
+    }
+  }
+
+  private void writable(String season) {
+    if (mongoTemplate.exists(query(where("_id").is(season).and("archived").is(true)), Season.class)) {
+      throw new ResponseStatusException(CONFLICT, "Season is archived");
+    }
+  }
+
+  private List<String> archived() {
+    return mongoTemplate.findDistinct(query(where("archived").is(true)), "_id", Season.class, String.class);
+  }
+
+  /**
+   * Narrows {@code rows} to seasons that are not archived.
+   */
+  private Query open(Query rows) {
+    return rows.addCriteria(where("season").nin(archived()));
+  }
+
+  private static Query owned(String userId, UUID id) {
+    return query(where("_id").is(id).and("userId").is(userId));
+  }
+}
@@ -0,0 +1,82 @@
+package de.maluku.serviceawards;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds what the auto-configured metrics don't cover: an {@code htmx} tag on {@code http.server.requests}, and the
+ * time spent rendering each view or fragment as {@code serviceawards.render}. Handler and render times also go to
+ * the {@link ServerTiming} header.
+ */
+@Configuration
+@Profile("!reactive")
+public class MetricsConfig implements WebMvcConfigurer {
+  private static final String HANDLER_START = MetricsConfig.class.getName() + ".handlerStart";
+  private static final String RENDER_START = MetricsConfig.class.getName() + ".renderStart";
+  private static final String RENDER_VIEW = MetricsConfig.class.getName() + ".renderView";
+
+  private final MeterRegistry registry;
+
+  public MetricsConfig(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Bean
+  public DefaultServerRequestObservationConvention htmxObservationConvention() {
+    return new DefaultServerRequestObservationConvention() {
+      @Override
+      public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and(KeyValue.of("htmx", Boolean.toString(context.getCarrier().getHeader("HX-Request") != null)));
+      }
+    };
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry interceptors) {
+    interceptors.addInterceptor(new HandlerInterceptor() {
+      @Override
+      public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(HANDLER_START, System.nanoTime());
+        return true;
+      }
+
+      @Override
+      public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView view) {
+        if (request.getAttribute(HANDLER_START) instanceof Long start) {
+          ServerTiming.record("handler", System.nanoTime() - start);
+        }
+        if (view != null && view.getViewName() != null && !view.getViewName().startsWith("redirect:")) {
+          request.setAttribute(RENDER_VIEW, view.getViewName());
+          request.setAttribute(RENDER_START, System.nanoTime());
+        }
+      }
+
+      @Override
+      public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(RENDER_START) instanceof Long start) {
+          long elapsed = System.nanoTime() - start;
+          Timer.builder("serviceawards.render")
+            .tag("view", (String) request.getAttribute(RENDER_VIEW))
+            .register(registry)
+            .record(elapsed, TimeUnit.NANOSECONDS);
+          ServerTiming.record("render", elapsed);
+        }
+      }
+    });
+  }
+}
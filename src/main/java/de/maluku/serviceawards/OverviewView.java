@@ -0,0 +1,128 @@
+package de.maluku.serviceawards;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.With;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Everything the overview fragments render, resolved once in the controller so the template only iterates.
+ * Totals are left null by fragments that don't show them.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class OverviewView {
+  public static final int PAGE_SIZE = 25;
+
+  @Builder.Default
+  private final List<RewardCard> rewards = List.of();
+  @Builder.Default
+  private final List<LogRow> logs = List.of();
+  private final Stats earned;
+  private final Stats used;
+  @Builder.Default
+  private final List<LogEntry> assignableLogs = List.of();
+  /** url of the next page of log rows, null on the last page */
+  @With
+  private final String nextPage;
+
+  /**
+   * @param season the season, or a slice of its rewards starting at {@code offset}
+   * @param add    index of the reward card in edit mode, -1 for none
+   * @param logs   the log entries to show in display order, only those of {@code season} are kept
+   */
+  public static OverviewView of(User user, Season season, int offset, int add, Collection<LogEntry> logs, Stats earned, Stats used) {
+    if (season == null) {
+      return OverviewView.builder().logs(rows(user, logs, null, Scoring.DEFAULT)).earned(earned).used(used).build();
+    }
+    List<RewardCard> cards = new ArrayList<>(season.getRewards().size());
+    for (int i = 0; i < season.getRewards().size(); i++) {
+      int index = offset + i;
+      List<AssignmentRow> assignments = new ArrayList<>();
+      for (Assigment assigment : user.find(season.getId(), index)) {
+        LogEntry entry = assigment.getEntryAsPlayer() != null ? user.find(assigment.getEntryAsPlayer()) : null;
+        List<LogEntry> options = index == add ? ServerTiming.timed("available", () -> user.available(season.getId(), assigment.getEntryAsPlayer())) : List.of();
+        assignments.add(new AssignmentRow(assigment, entry, options));
+      }
+      cards.add(new RewardCard(index, season.getRewards().get(i), assignments));
+    }
+    return new OverviewView(cards, rows(user, logs, season.getId(), season.scoring()), earned, used, ServerTiming.timed("available", () -> user.available(season.getId())), null);
+  }
+
+  /**
+   * The overview of {@code season} showing the first page of log rows.
+   *
+   * @param user with the season's log entries loaded in display order
+   */
+  public static OverviewView firstPage(User user, Season season, int add, SeasonSummary summary) {
+    List<LogEntry> logs = user.getLogEntries();
+    return of(user, season, 0, add, logs.subList(0, Math.min(logs.size(), PAGE_SIZE)), summary.earned(), summary.used())
+      .withNextPage(nextPage(user.getUserId(), season.getId(), logs));
+  }
+
+  /**
+   * @param page the entries of a page followed by at least one more if there is a next page
+   */
+  public static String nextPage(String uid, String season, List<LogEntry> page) {
+    if (page.size() <= PAGE_SIZE) {
+      return null;
+    }
+    LogEntry last = page.get(PAGE_SIZE - 1);
+    return "/log/" + uid + "/" + season + "/page?after=" + last.getId() + (last.getDate() != null ? "&date=" + last.getDate().getTime() : "");
+  }
+
+  /**
+   * Only the log rows, for fragments that re-render single entries.
+   */
+  public static OverviewView ofLogs(User user, Season season, Collection<LogEntry> logs) {
+    return OverviewView.builder().logs(rows(user, logs, season != null ? season.getId() : null, season != null ? season.scoring() : Scoring.DEFAULT)).build();
+  }
+
+  private static List<LogRow> rows(User user, Collection<LogEntry> logs, String season, Scoring scoring) {
+    List<LogRow> rows = new ArrayList<>(logs.size());
+    for (LogEntry entry : logs) {
+      if (season == null || Objects.equals(entry.getSeason(), season)) {
+        rows.add(new LogRow(entry, user.used(entry.getId()), scoring.stats(entry.counters())));
+      }
+    }
+    return rows;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class RewardCard {
+    private final int index;
+    private final RewardEntry reward;
+    private final List<AssignmentRow> assignments;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class AssignmentRow {
+    private final Assigment assignment;
+    /** the log entry used as player, if any */
+    private final LogEntry entry;
+    /** log entries this assignment may switch to, only filled for the card in edit mode */
+    private final List<LogEntry> options;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class LogRow {
+    private final LogEntry entry;
+    private final boolean used;
+    /** what the entry earns under the season's scoring */
+    private final Stats stats;
+
+    public String getHours() {
+      int quarters = stats.getQuarters();
+      return stats.getServicehours() + (quarters == 1 ? "¼" : quarters == 2 ? "½" : quarters == 3 ? "¾" : "");
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package de.maluku.serviceawards;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the rendered HTML of {@code /log/{uid}} and {@code /log/{uid}/{season}} for viewers other than the owner, so
+ * shared profile links are served without touching Mongo or Thymeleaf. Memory is bounded by the size of the cached
+ * pages, and pages expire after a while in case a write went around {@link LogMutations}, which drops a user's pages on
+ * every write. Saving the user document drops them as well, season changes drop all of them.
+ * <p>
+ * A page rendered while its user was invalidated is not kept. Invalidations are stamped from one clock, so a
+ * user's stamp can expire together with their pages without an older render matching it again.
+ */
+@Component
+public class PageCache extends OncePerRequestFilter {
+  private static final Pattern PAGES = Pattern.compile("/log/([^/]+)(?:/([^/]+))?");
+  private static final List<String> HEADERS = List.of(HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL, HttpHeaders.VARY, "HX-Push-Url");
+
+  private final Cache<Key, Page> pages;
+  private final Cache<String, Long> generations;
+  private final AtomicLong clock = new AtomicLong();
+  private volatile long generation;
+
+  public PageCache(@Value("${serviceawards.page-cache.max-size:32MB}") DataSize maxSize, @Value("${serviceawards.page-cache.ttl:10m}") Duration ttl) {
+    this.pages = Caffeine.newBuilder()
+      .maximumWeight(maxSize.toBytes())
+      .weigher((Key key, Page page) -> page.body().length)
+      .expireAfterWrite(ttl)
+      .build();
+    this.generations = Caffeine.newBuilder()
+      .expireAfterWrite(ttl)
+      .build();
+  }
+
+  public void invalidate(String uid) {
+    generations.put(uid, clock.incrementAndGet());
+    pages.asMap().keySet().removeIf(key -> key.uid().equals(uid));
+  }
+
+  public void invalidateAll() {
+    generation = clock.incrementAndGet();
+    pages.invalidateAll();
+  }
+
+  @EventListener
+  public void onSave(AfterSaveEvent<?> event) {
+    if (event.getSource() instanceof Season) {
+      invalidateAll();
+    }
+    else if (event.getSource() instanceof User user) {
+      invalidate(user.getUserId());
+    }
+  }
+
+  @EventListener
+  public void onDelete(AfterDeleteEvent<?> event) {
+    if (Season.class.equals(event.getType())) {
+      invalidateAll();
+    }
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !"GET".equals(request.getMethod()) || request.getQueryString() != null || !PAGES.matcher(request.getRequestURI()).matches();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+    Matcher matcher = PAGES.matcher(request.getRequestURI());
+    matcher.matches();
+    String uid = matcher.group(1);
+    Principal principal = SecurityContextHolder.getContext().getAuthentication();
+    boolean anonymous = principal == null || principal instanceof AnonymousAuthenticationToken;
+    if (!anonymous && principal.getName().equals(uid)) {
+      chain.doFilter(request, response);
+      return;
+    }
+    Key key = new Key(uid, request.getRequestURI(), anonymous, request.getHeader("HX-Request") != null);
+    Page page = pages.getIfPresent(key);
+    if (page != null) {
+      page.headers().forEach(response::setHeader);
+      String etag = page.headers().get(HttpHeaders.ETAG);
+      if (etag != null && etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return;
+      }
+      response.setContentType(page.contentType());
+      response.setContentLength(page.body().length);
+      response.getOutputStream().write(page.body());
+      return;
+    }
+    long before = generation(uid);
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    chain.doFilter(request, wrapper);
+    if (wrapper.getStatus() == HttpServletResponse.SC_OK && wrapper.getContentType() != null && wrapper.getContentType().startsWith("text/html")
+      && !wrapper.containsHeader(HttpHeaders.SET_COOKIE) && generation(uid) == before) {
+      Map<String, String> headers = new LinkedHashMap<>();
+      for (String header : HEADERS) {
+        if (wrapper.getHeader(header) != null) {
+          headers.put(header, wrapper.getHeader(header));
+        }
+      }
+      pages.put(key, new Page(wrapper.getContentAsByteArray(), wrapper.getContentType(), headers));
+      if (generation(uid) != before) {
+        pages.invalidate(key);
+      }
+    }
+    wrapper.copyBodyToResponse();
+  }
+
+  private long generation(String uid) {
+    Long user = generations.getIfPresent(uid);
+    return user != null ? Math.max(generation, user) : generation;
+  }
+
+  private record Key(String uid, String path, boolean anonymous, boolean htmx) {
+  }
+
+  private record Page(byte[] body, String contentType, Map<String, String> headers) {
+  }
+}
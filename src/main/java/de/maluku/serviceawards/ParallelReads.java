@@ -0,0 +1,117 @@
+package de.maluku.serviceawards;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Runs the independent reads of one request side by side on virtual threads, so a page waits for its slowest query
+ * instead of the sum of all of them. Reads see the caller's security context and request-scoped beans.
+ * <pre>
+ * try (ParallelReads.Scope reads = parallelReads.open()) {
+ *   Supplier&lt;List&lt;Season&gt;&gt; seasons = reads.fork(seasonRepository::findAll);
+ *   Supplier&lt;Season&gt; latest = reads.fork(seasonRepository::findFirstByOrderByStartDesc);
+ *   reads.join();
+ *   ...
+ * }
+ * </pre>
+ * All forks of a scope share one deadline. The first failing read, or running past the deadline, cancels the others.
+ */
+@Component
+public class ParallelReads {
+  private final ExecutorService executor = new DelegatingSecurityContextExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+  private final Duration deadline;
+
+  public ParallelReads(@Value("${serviceawards.read-deadline:5s}") Duration deadline) {
+    this.deadline = deadline;
+  }
+
+  public Scope open() {
+    return new Scope(System.nanoTime() + deadline.toNanos());
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  public class Scope implements AutoCloseable {
+    private final long deadline;
+    private final CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+    private final List<Future<?>> forks = new ArrayList<>();
+    private int pending;
+
+    private Scope(long deadline) {
+      this.deadline = deadline;
+    }
+
+    /**
+     * Starts {@code read} right away. The returned supplier may only be called after {@link #join()}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Supplier<T> fork(Callable<T> read) {
+      RequestAttributes request = RequestContextHolder.getRequestAttributes();
+      Future<T> future = (Future<T>) completion.submit(() -> {
+        RequestContextHolder.setRequestAttributes(request);
+        try {
+          return read.call();
+        }
+        finally {
+          RequestContextHolder.resetRequestAttributes();
+        }
+      });
+      forks.add(future);
+      pending++;
+      return future::resultNow;
+    }
+
+    /**
+     * Waits for every read forked so far. Can be called again after forking reads that depend on earlier results.
+     */
+    public void join() {
+      try {
+        for (; pending > 0; pending--) {
+          Future<Object> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (done == null) {
+            throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Timed out loading data");
+          }
+          done.get();
+        }
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ResponseStatusException(SERVICE_UNAVAILABLE, "Interrupted loading data", e);
+      }
+      catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+
+    @Override
+    public void close() {
+      forks.forEach(f -> f.cancel(true));
+    }
+  }
+}
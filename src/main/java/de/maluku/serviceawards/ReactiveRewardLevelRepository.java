@@ -0,0 +1,8 @@
+package de.maluku.serviceawards;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+@Profile("reactive")
+public interface ReactiveRewardLevelRepository extends ReactiveMongoRepository<RewardLevel, String> {
+}
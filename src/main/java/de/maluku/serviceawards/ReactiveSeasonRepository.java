@@ -0,0 +1,10 @@
+package de.maluku.serviceawards;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+@Profile("reactive")
+public interface ReactiveSeasonRepository extends ReactiveMongoRepository<Season, String> {
+  Mono<Season> findFirstByOrderByStartDesc();
+}
@@ -0,0 +1,30 @@
+package de.maluku.serviceawards;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.logout.RedirectServerLogoutSuccessHandler;
+
+import java.net.URI;
+
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+  @Bean
+  public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+    RedirectServerLogoutSuccessHandler logoutSuccess = new RedirectServerLogoutSuccessHandler();
+    logoutSuccess.setLogoutSuccessUrl(URI.create("/"));
+    return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+      .authorizeExchange(reg->
+        reg
+          .anyExchange().permitAll()
+        )
+      .logout(l->l.logoutSuccessHandler(logoutSuccess))
+      .oauth2Login(Customizer.withDefaults()).build();
+  }
+}
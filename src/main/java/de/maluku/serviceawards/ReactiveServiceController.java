@@ -0,0 +1,119 @@
+package de.maluku.serviceawards;
+
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+/**
+ * Non-blocking counterpart of the read-only pages of {@link ServiceController}, active with the {@code reactive}
+ * profile. Renders the same templates with the same model.
+ */
+@Controller
+@Profile("reactive")
+@AllArgsConstructor
+public class ReactiveServiceController {
+  private final ReactiveUserRepository userRepository;
+  private final ReactiveSeasonRepository seasonRepository;
+  private final ReactiveRewardLevelRepository rewardLevelRepository;
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final SeasonSummaries summaries;
+
+  @GetMapping("/")
+  public Mono<String> home() {
+    return authentication().map(a -> "redirect:/log/" + a.getName()).defaultIfEmpty("home");
+  }
+
+  @GetMapping("/log/{uid}")
+  public Mono<String> log(@PathVariable String uid, Model model) {
+    model.addAttribute("add", -1);
+    model.addAttribute("seasons", seasonRepository.findAll().collectList());
+    model.addAttribute("rewardLevels", rewardLevelRepository.findAll().collectList());
+    return seasonRepository.findFirstByOrderByStartDesc()
+      .flatMap(latest -> season(uid, latest, model))
+      .switchIfEmpty(Mono.defer(() -> getUser(uid).map(user -> {
+        model.addAttribute("user", user);
+        model.addAttribute("locations", List.of());
+        model.addAttribute("characters", List.of());
+        model.addAttribute("view", OverviewView.builder().earned(new Stats()).used(new Stats()).build());
+        return new UserSeason(user);
+      })))
+      .thenReturn("overview");
+  }
+
+  @GetMapping("/log/{uid}/{id}")
+  public Mono<String> log(@PathVariable String uid, @PathVariable String id, @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, ServerHttpResponse response, Model model) {
+    model.addAttribute("add", -1);
+    if (!htmx) {
+      model.addAttribute("seasons", seasonRepository.findAll().collectList());
+    }
+    return seasonRepository.findById(id)
+      .flatMap(season -> season(uid, season, model))
+      .doOnNext(data -> {
+        if (htmx) response.getHeaders().add("HX-Push-Url", "/log/" + uid + "/" + id);
+      })
+      .switchIfEmpty(Mono.defer(() -> load(uid, id, false).map(data -> {
+        model.addAttribute("user", data.toUser());
+        model.addAttribute("locations", data.getLocations());
+        model.addAttribute("characters", data.getCharacters());
+        model.addAttribute("season", seasonRepository.findFirstByOrderByStartDesc());
+        model.addAttribute("view", OverviewView.builder().earned(new Stats()).used(new Stats()).build());
+        return data;
+      })))
+      .thenReturn(htmx ? "overview :: seasontable" : "overview");
+  }
+
+  private Mono<UserSeason> season(String uid, Season season, Model model) {
+    return Mono.zip(load(uid, season.getId(), season.isArchived()), summary(uid, season.getId())).map(loaded -> {
+      UserSeason data = loaded.getT1();
+      User user = data.toUser();
+      model.addAttribute("user", user);
+      model.addAttribute("season", season);
+      model.addAttribute("locations", data.getLocations());
+      model.addAttribute("characters", data.getCharacters());
+      model.addAttribute("view", OverviewView.firstPage(user, season, -1, loaded.getT2()));
+      return data;
+    });
+  }
+
+  private Mono<UserSeason> load(String uid, String season, boolean archived) {
+    return (archived ? userRepository.findArchivedSeason(uid, season) : userRepository.findSeason(uid, season)).switchIfEmpty(Mono.defer(() -> getUser(uid).map(UserSeason::new)));
+  }
+
+  private Mono<SeasonSummary> summary(String uid, String season) {
+    return mongoTemplate.findById(SeasonSummary.key(uid, season), SeasonSummary.class)
+      .switchIfEmpty(Mono.fromCallable(() -> summaries.get(uid, season)).subscribeOn(Schedulers.boundedElastic()));
+  }
+
+  private Mono<User> getUser(String uid) {
+    return userRepository.findById(uid)
+      .switchIfEmpty(Mono.defer(() -> authentication()
+        .filter(a -> a.getName().equals(uid))
+        .flatMap(a -> userRepository.insert(new User(uid)))
+        .onErrorResume(DuplicateKeyException.class, e -> userRepository.findById(uid))))
+      .switchIfEmpty(Mono.error(() -> new ResponseStatusException(NOT_FOUND)));
+  }
+
+  private static Mono<Authentication> authentication() {
+    return ReactiveSecurityContextHolder.getContext()
+      .mapNotNull(SecurityContext::getAuthentication)
+      .filter(a -> !(a instanceof AnonymousAuthenticationToken));
+  }
+}
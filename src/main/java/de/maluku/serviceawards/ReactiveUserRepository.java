@@ -0,0 +1,30 @@
+package de.maluku.serviceawards;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+import static de.maluku.serviceawards.UserRepository.FLATTEN_NAMES;
+import static de.maluku.serviceawards.UserRepository.LOOKUP_ARCHIVED_ASSIGNMENTS;
+import static de.maluku.serviceawards.UserRepository.LOOKUP_ARCHIVED_LOGS;
+import static de.maluku.serviceawards.UserRepository.LOOKUP_CHARACTERS;
+import static de.maluku.serviceawards.UserRepository.LOOKUP_LOCATIONS;
+import static de.maluku.serviceawards.UserRepository.LOOKUP_SEASON_ASSIGNMENTS;
+import static de.maluku.serviceawards.UserRepository.LOOKUP_SEASON_LOGS;
+import static de.maluku.serviceawards.UserRepository.MATCH_USER;
+
+@Profile("reactive")
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+  /**
+   * @see UserRepository#findSeason(String, String)
+   */
+  @Aggregation(pipeline = {MATCH_USER, LOOKUP_SEASON_LOGS, LOOKUP_SEASON_ASSIGNMENTS, LOOKUP_LOCATIONS, LOOKUP_CHARACTERS, FLATTEN_NAMES})
+  Mono<UserSeason> findSeason(String userId, String season);
+
+  /**
+   * @see UserRepository#findArchivedSeason(String, String)
+   */
+  @Aggregation(pipeline = {MATCH_USER, LOOKUP_ARCHIVED_LOGS, LOOKUP_ARCHIVED_ASSIGNMENTS, LOOKUP_LOCATIONS, LOOKUP_CHARACTERS, FLATTEN_NAMES})
+  Mono<UserSeason> findArchivedSeason(String userId, String season);
+}
@@ -0,0 +1,28 @@
+package de.maluku.serviceawards;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes every season summary from the stored rows when started with {@code --rebuild-summaries}.
+ */
+@Log
+@Component
+@Order(1)
+@AllArgsConstructor
+public class RebuildSummaries implements ApplicationRunner {
+  private final SeasonSummaries summaries;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (args.containsOption("rebuild-summaries")) {
+      log.info("Rebuilding season summaries");
+      summaries.rebuildAll();
+      log.info("Rebuilt season summaries");
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package de.maluku.serviceawards;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The users loaded during one request, so however many helpers ask for a user it is read from Mongo at most once
+ * per request, and all of them share the same instance. Misses are remembered as well.
+ */
+@Component
+@RequestScope
+@Profile("!reactive")
+public class RequestUsers {
+  private final UserRepository userRepository;
+  private final Map<String, Optional<User>> users = new ConcurrentHashMap<>();
+
+  public RequestUsers(UserRepository userRepository) {
+    this.userRepository = userRepository;
+  }
+
+  public Optional<User> find(String userId) {
+    return users.computeIfAbsent(userId, userRepository::findById);
+  }
+
+  public User insert(User user) {
+    User saved = userRepository.insert(user);
+    users.put(saved.getUserId(), Optional.of(saved));
+    return saved;
+  }
+
+  /**
+   * Forgets every loaded user, for retrying a write against fresh versions.
+   */
+  public void clear() {
+    users.clear();
+  }
+}
@@ -0,0 +1,23 @@
+package de.maluku.serviceawards;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * How often one reward entry of a season was assigned across all users, and how many of those were paid with a full
+ * reward instead of hours.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class RewardClaims {
+  @JsonIgnore
+  private String season;
+  private int reward;
+  private String name;
+  private int claimed;
+  private int fullRewards;
+  private int hours;
+}
@@ -9,7 +9,7 @@ import lombok.Setter;
 @Getter
 @Setter
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 public class RewardEntry {
   private String name;
@@ -23,4 +23,8 @@ public class RewardEntry {
 
   private boolean allowsLevel;
   private boolean repeatable;
+
+  public RewardEntry copy() {
+    return toBuilder().build();
+  }
 }
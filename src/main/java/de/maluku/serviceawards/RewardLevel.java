@@ -12,7 +12,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @Getter
 @Setter
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 public class RewardLevel {
   @Id
@@ -20,4 +20,11 @@ public class RewardLevel {
   private String name;
   private int cost;
   private boolean singleSession;
+
+  /**
+   * A copy to change and save, levels from the {@link RewardLevelRepository} are cached and shared between requests.
+   */
+  public RewardLevel copy() {
+    return toBuilder().build();
+  }
 }
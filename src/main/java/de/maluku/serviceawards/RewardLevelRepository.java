@@ -1,8 +1,26 @@
 package de.maluku.serviceawards;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface RewardLevelRepository extends MongoRepository<RewardLevel, String> {
+  @Override
+  @Cacheable("rewardLevelList")
+  List<RewardLevel> findAll();
+
+  @Override
+  @Cacheable("rewardLevels")
+  Optional<RewardLevel> findById(String id);
+
+  @Override
+  @CacheEvict(cacheNames = {"rewardLevels", "rewardLevelList"}, allEntries = true)
+  <S extends RewardLevel> S save(S entity);
+
+  @Override
+  @CacheEvict(cacheNames = {"rewardLevels", "rewardLevelList"}, allEntries = true)
+  void deleteById(String id);
 }
@@ -0,0 +1,85 @@
+package de.maluku.serviceawards;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Transient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A season's scoring table, stored with the {@link Season} so organizers can change it without a deploy. The rules
+ * are compiled into one weight vector on first use; scoring is then a dot product with {@link LogEntry#counters()}.
+ * Scores are linear, so the counters of many entries can be summed first and scored once.
+ */
+@NoArgsConstructor
+public class Scoring {
+  public enum Unit {HOURS, QUARTER_HOURS, REWARDS}
+
+  /**
+   * The rules every season used before scoring was stored with the season.
+   */
+  public static final Scoring DEFAULT = new Scoring(List.of(
+    new ScoringRule(Activity.ADD_SERVICE_HOURS, Unit.HOURS, 1),
+    new ScoringRule(Activity.DM, Unit.HOURS, 1),
+    new ScoringRule(Activity.PREP_TIME, Unit.HOURS, 1),
+    new ScoringRule(Activity.NEW_PLAYERS, Unit.HOURS, 1),
+    new ScoringRule(Activity.MENTORING, Unit.HOURS, 1),
+    new ScoringRule(Activity.STREAMING, Unit.HOURS, 1),
+    new ScoringRule(Activity.SAFETY_TOOLS, Unit.QUARTER_HOURS, 1),
+    new ScoringRule(Activity.LEARN_TO_PLAY, Unit.QUARTER_HOURS, 2),
+    new ScoringRule(Activity.REVIEWING, Unit.QUARTER_HOURS, 2),
+    new ScoringRule(Activity.ADD_FULL_REWARDS, Unit.REWARDS, 1),
+    new ScoringRule(Activity.CODE_OF_CONDUCT, Unit.REWARDS, 1),
+    new ScoringRule(Activity.EVENT_ORGA, Unit.REWARDS, 1),
+    new ScoringRule(Activity.EVENT_STAFFING, Unit.REWARDS, 1)));
+
+  @Getter
+  private List<ScoringRule> rules = new ArrayList<>();
+  /** weights by unit, then activity */
+  @Transient
+  private volatile int[] weights;
+
+  public Scoring(List<ScoringRule> rules) {
+    this.rules = rules;
+  }
+
+  public int fullHours(int[] counters) {
+    return dot(Unit.HOURS, counters);
+  }
+
+  public int quarterHours(int[] counters) {
+    return dot(Unit.QUARTER_HOURS, counters);
+  }
+
+  public int rewards(int[] counters) {
+    return dot(Unit.REWARDS, counters);
+  }
+
+  public Stats stats(int[] counters) {
+    int quarterHours = quarterHours(counters);
+    return new Stats(fullHours(counters) + quarterHours / 4, rewards(counters), quarterHours % 4);
+  }
+
+  private int dot(Unit unit, int[] counters) {
+    int[] weights = weights();
+    int offset = unit.ordinal() * Activity.COUNT;
+    int sum = 0;
+    for (int i = 0; i < Activity.COUNT; i++) {
+      sum += weights[offset + i] * counters[i];
+    }
+    return sum;
+  }
+
+  private int[] weights() {
+    int[] compiled = weights;
+    if (compiled == null) {
+      compiled = new int[Unit.values().length * Activity.COUNT];
+      for (ScoringRule rule : rules) {
+        compiled[rule.getUnit().ordinal() * Activity.COUNT + rule.getActivity().ordinal()] += rule.getWeight();
+      }
+      weights = compiled;
+    }
+    return compiled;
+  }
+}
@@ -0,0 +1,19 @@
+package de.maluku.serviceawards;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One row of a {@link Scoring} table: each unit of {@code activity} earns {@code weight} of {@code unit}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoringRule {
+  private Activity activity;
+  private Scoring.Unit unit;
+  private int weight;
+}
@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
@@ -13,32 +14,56 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @Document
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 public class Season {
+  private static final Date SEASON_12A = new GregorianCalendar(2022, Calendar.SEPTEMBER, 2).getTime();
+  private static final Date SEASON_12B = new GregorianCalendar(2023, Calendar.MARCH, 2).getTime();
+
   @Id
   private String id;
 
   private Date start;
   private Date end;
+  @LastModifiedDate
+  private Date modified;
+  /**
+   * Set once the season's rows were moved to the {@link SeasonArchive archive}; the season is read-only from then on.
+   */
+  private boolean archived;
 
   @Builder.Default
   private List<RewardEntry> rewards = new ArrayList<>();
+  /** null for seasons stored before scoring rules were, which score with {@link Scoring#DEFAULT} */
+  private Scoring scoring;
+
+  /**
+   * A copy to change and save. Seasons from the {@link SeasonRepository} are cached and shared between requests, so
+   * they must not be modified in place.
+   */
+  public Season copy() {
+    return toBuilder().rewards(rewards.stream().map(RewardEntry::copy).collect(Collectors.toCollection(ArrayList::new))).build();
+  }
+
+  public Scoring scoring() {
+    return scoring != null ? scoring : Scoring.DEFAULT;
+  }
 
   public boolean beforePrepTime() {
-    return end.before(new GregorianCalendar(2023, Calendar.MARCH, 2).getTime());
+    return end.before(SEASON_12B);
   }
 
   public boolean beforeNewPlayers() {
-    return end.before(new GregorianCalendar(2023, Calendar.MARCH, 2).getTime());
+    return end.before(SEASON_12B);
   }
 
   public boolean beforeReviewing() {
-    return end.before(new GregorianCalendar(2022, Calendar.SEPTEMBER, 2).getTime());
+    return end.before(SEASON_12A);
   }
 }
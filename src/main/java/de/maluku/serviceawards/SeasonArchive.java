@@ -0,0 +1,182 @@
+package de.maluku.serviceawards;
+
+import lombok.extern.java.Log;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Moves the log entries and assignments of seasons that ended more than {@code serviceawards.archive.after} ago out of
+ * the hot collections into archive collections of the same shape, so the hot collections and their indexes only
+ * hold the seasons still being logged. Archived seasons are read-only and keep their per-user totals in the
+ * {@link SeasonSummaries season summaries}.
+ */
+@Log
+@Component
+public class SeasonArchive {
+  public static final String LOG_ENTRIES = "archivedLogEntries";
+  public static final String ASSIGNMENTS = "archivedAssignments";
+  private static final int REMOVE_BATCH = 1000;
+
+  private final MongoTemplate mongoTemplate;
+  private final SeasonRepository seasonRepository;
+  private final SeasonSummaries summaries;
+  private final Duration after;
+  private final Duration settle;
+
+  public SeasonArchive(MongoTemplate mongoTemplate, SeasonRepository seasonRepository, SeasonSummaries summaries,
+                       @Value("${serviceawards.archive.after:30d}") Duration after,
+                       @Value("${serviceawards.archive.settle:10s}") Duration settle) {
+    this.mongoTemplate = mongoTemplate;
+    this.seasonRepository = seasonRepository;
+    this.summaries = summaries;
+    this.after = after;
+    this.settle = settle;
+  }
+
+  @Scheduled(cron = "${serviceawards.archive.cron:0 30 3 * * *}")
+  public void archiveClosed() {
+    Date closed = Date.from(Instant.now().minus(after));
+    for (Season season : seasonRepository.findAll()) {
+      if (season.getEnd() != null && season.getEnd().before(closed) && (!season.isArchived() || leftOver(season))) {
+        archive(season);
+      }
+    }
+  }
+
+  /**
+   * Copies the season's rows into the archive before removing them from the hot collections, so an interrupted run
+   * can simply be repeated. Once the season is marked archived, {@link LogMutations} refuses writes to it; after
+   * waiting {@code serviceawards.archive.settle} for writes that were already in flight, the rows are copied a second
+   * time. Only rows found in the archive are removed, anything else stays for the next run.
+   */
+  public void archive(Season closed) {
+    ensureIndexes();
+    Season season = closed;
+    if (!closed.isArchived()) {
+      copy(closed, LogEntry.class, LOG_ENTRIES);
+      copy(closed, Assigment.class, ASSIGNMENTS);
+      season = closed.copy();
+      season.setArchived(true);
+      seasonRepository.save(season);
+      settle();
+    }
+    copy(season, LogEntry.class, LOG_ENTRIES);
+    copy(season, Assigment.class, ASSIGNMENTS);
+    long logs = removeArchived(season, LogEntry.class, LOG_ENTRIES);
+    long assignments = removeArchived(season, Assigment.class, ASSIGNMENTS);
+    if (leftOver(season)) {
+      log.warning("Season " + season.getId() + " still has rows outside the archive, they are moved on the next run");
+    }
+    summaries.rebuild(season);
+    log.info("Archived season " + season.getId() + " with " + logs + " log entries and " + assignments + " assignments");
+  }
+
+  /**
+   * @see LogEntryRepository#findByUserIdAndSeasonOrderByDateDescIdDesc
+   */
+  public List<LogEntry> logs(String userId, String season) {
+    return mongoTemplate.find(query(where("userId").is(userId).and("season").is(season)).with(Sort.by(Sort.Direction.DESC, "date", "_id")), LogEntry.class, LOG_ENTRIES);
+  }
+
+  /**
+   * @see LogEntryRepository#findPageAfter
+   * @see LogEntryRepository#findUndatedPageAfter
+   */
+  public List<LogEntry> pageAfter(String userId, String season, Date date, UUID id, int limit) {
+    Criteria page = where("userId").is(userId).and("season").is(season);
+    if (date != null) {
+      page.orOperator(where("date").lt(date), where("date").is(date).and("_id").lt(id), where("date").is(null));
+    }
+    else {
+      page.and("date").is(null).and("_id").lt(id);
+    }
+    return mongoTemplate.find(query(page).with(Sort.by(Sort.Direction.DESC, "date", "_id")).limit(limit), LogEntry.class, LOG_ENTRIES);
+  }
+
+  /**
+   * @see LogEntryRepository#findByIdAndUserId
+   */
+  public Optional<LogEntry> entry(String userId, UUID id) {
+    return Optional.ofNullable(mongoTemplate.findOne(query(where("_id").is(id).and("userId").is(userId)), LogEntry.class, LOG_ENTRIES));
+  }
+
+  public List<Assigment> assignments(String userId, String season) {
+    return mongoTemplate.find(query(where("userId").is(userId).and("season").is(season)), Assigment.class, ASSIGNMENTS);
+  }
+
+  private boolean leftOver(Season season) {
+    Query rows = query(where("season").is(season.getId()));
+    return mongoTemplate.exists(rows, LogEntry.class) || mongoTemplate.exists(rows, Assigment.class);
+  }
+
+  private void settle() {
+    try {
+      Thread.sleep(settle);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while archiving", e);
+    }
+  }
+
+  /**
+   * Removes the hot rows whose id is in the archive, in batches of {@value #REMOVE_BATCH} ids.
+   */
+  private long removeArchived(Season season, Class<?> type, String archive) {
+    Query archived = query(where("season").is(season.getId()));
+    archived.fields().include("_id");
+    long removed = 0;
+    List<Object> ids = new ArrayList<>(REMOVE_BATCH);
+    try (Stream<Document> rows = mongoTemplate.stream(archived, Document.class, archive)) {
+      for (Iterator<Document> it = rows.iterator(); it.hasNext(); ) {
+        ids.add(it.next().get("_id"));
+        if (ids.size() == REMOVE_BATCH || !it.hasNext()) {
+          removed += mongoTemplate.remove(query(where("_id").in(ids).and("season").is(season.getId())), type).getDeletedCount();
+          ids.clear();
+        }
+      }
+    }
+    return removed;
+  }
+
+  private void copy(Season season, Class<?> type, String archive) {
+    MergeOperation merge = Aggregation.merge().intoCollection(archive).on("_id")
+      .whenMatched(MergeOperation.WhenDocumentsMatch.replaceDocument())
+      .whenDocumentsDontMatch(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+      .build();
+    mongoTemplate.aggregate(Aggregation.newAggregation(match(where("season").is(season.getId())), merge), type, Document.class);
+  }
+
+  /**
+   * The archive collections are not mapped to an entity, so their indexes mirror those of {@link LogEntry} and
+   * {@link Assigment} here.
+   */
+  private void ensureIndexes() {
+    mongoTemplate.indexOps(LOG_ENTRIES).ensureIndex(new CompoundIndexDefinition(new Document("userId", 1).append("season", 1).append("date", -1).append("_id", -1)).named("user_season_date"));
+    mongoTemplate.indexOps(ASSIGNMENTS).ensureIndex(new CompoundIndexDefinition(new Document("userId", 1).append("season", 1)).named("user_season"));
+    mongoTemplate.indexOps(ASSIGNMENTS).ensureIndex(new CompoundIndexDefinition(new Document("userId", 1).append("entryAsPlayer", 1)).named("user_entry"));
+  }
+}
@@ -0,0 +1,34 @@
+package de.maluku.serviceawards;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.bson.Document;
+
+/**
+ * One user's summed activity counters in one season, as grouped by {@link SeasonReports}, to be scored with the
+ * season's {@link Scoring}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class SeasonContribution {
+  private String season;
+  private String userId;
+  private int entries;
+  /** in {@link Activity} order */
+  private int[] counters = new int[Activity.COUNT];
+
+  /**
+   * Reads a group keyed by {@code season} and {@code userId} with the sums under their {@link Activity#field} names.
+   */
+  static SeasonContribution of(Document group) {
+    Document id = group.get("_id", Document.class);
+    SeasonContribution contribution = new SeasonContribution();
+    contribution.setSeason(id.getString("season"));
+    contribution.setUserId(id.getString("userId"));
+    contribution.setEntries(group.get("entries") instanceof Number number ? number.intValue() : 0);
+    Activity.read(group, contribution.getCounters());
+    return contribution;
+  }
+}
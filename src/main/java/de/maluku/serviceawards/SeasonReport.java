@@ -0,0 +1,36 @@
+package de.maluku.serviceawards;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cross-user totals of one season for the admin report, filled in by {@link SeasonReports}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class SeasonReport {
+  private String season;
+  private Season details;
+  private int users;
+  private int entries;
+  private int hours;
+  private int rewards;
+  private List<Contributor> top = new ArrayList<>();
+  private int claimedHours;
+  private int claimedRewards;
+  private List<RewardClaims> claims = new ArrayList<>();
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  public static class Contributor {
+    private String userId;
+    private int hours;
+    private int rewards;
+  }
+}
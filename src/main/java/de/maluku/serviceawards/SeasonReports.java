@@ -0,0 +1,112 @@
+package de.maluku.serviceawards;
+
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the admin report from two aggregations, one over log entries and one over assignments, so no user data is
+ * loaded into the application. Earned hours are scored per user from the summed counters with the season's
+ * {@link Scoring}, which mirrors {@link LogEntry#getStats} since scores are linear. Claimed hours are priced with the
+ * season's reward levels the way {@link Assigment#getStats(Season, List)} does.
+ */
+@Component
+@AllArgsConstructor
+public class SeasonReports {
+  public static final int TOP_CONTRIBUTORS = 10;
+
+  private final SeasonRepository seasonRepository;
+  private final MongoTemplate mongoTemplate;
+  private final AssignmentRepository assignmentRepository;
+  private final ParallelReads parallelReads;
+
+  /**
+   * @return one report per season, latest season first
+   */
+  public List<SeasonReport> build() {
+    try (ParallelReads.Scope reads = parallelReads.open()) {
+      Supplier<List<Season>> seasons = reads.fork(seasonRepository::findAll);
+      Supplier<List<SeasonContribution>> earned = reads.fork(this::contributions);
+      Supplier<List<RewardClaims>> claims = reads.fork(assignmentRepository::findRewardClaims);
+      reads.join();
+      Map<String, List<SeasonContribution>> contributions = earned.get().stream().collect(Collectors.groupingBy(SeasonContribution::getSeason));
+      Map<String, List<RewardClaims>> claimsBySeason = claims.get().stream().collect(Collectors.groupingBy(RewardClaims::getSeason));
+      return seasons.get().stream()
+        .sorted(Comparator.comparing(Season::getStart, Comparator.nullsLast(Comparator.<Date>reverseOrder())))
+        .map(season -> {
+          SeasonReport report = earned(season, contributions.getOrDefault(season.getId(), List.of()));
+          report.setSeason(season.getId());
+          report.setDetails(season);
+          claimsBySeason.getOrDefault(season.getId(), List.of()).forEach(claim -> claim(report, season, claim));
+          return report;
+        })
+        .toList();
+    }
+  }
+
+  /**
+   * Summed activity counters per season and user, leaving out entries assigned to a reward as player as
+   * {@link LogEntry#getStats} does. Archived seasons are matched against archived assignments and unioned in. The
+   * sums are grouped under the {@link Activity#field} names, so adding an activity needs no change here.
+   */
+  private List<SeasonContribution> contributions() {
+    GroupOperation group = Aggregation.group("season", "userId").count().as("entries");
+    for (Activity activity : Activity.values()) {
+      group = group.sum(activity.field).as(activity.field);
+    }
+    Aggregation aggregation = Aggregation.newAggregation(
+      stage(LogEntryRepository.LOOKUP_USED_AS_PLAYER),
+      stage(LogEntryRepository.UNUSED_AS_PLAYER),
+      stage("{ $unionWith: { coll: '" + SeasonArchive.LOG_ENTRIES + "', pipeline: [ " + LogEntryRepository.LOOKUP_ARCHIVED_USED_AS_PLAYER + ", " + LogEntryRepository.UNUSED_AS_PLAYER + " ] } }"),
+      group);
+    return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(LogEntry.class), Document.class).getMappedResults().stream()
+      .map(SeasonContribution::of)
+      .toList();
+  }
+
+  static AggregationOperation stage(String json) {
+    return context -> Document.parse(json);
+  }
+
+  private static SeasonReport earned(Season season, List<SeasonContribution> contributions) {
+    SeasonReport report = new SeasonReport();
+    List<SeasonReport.Contributor> contributors = new ArrayList<>(contributions.size());
+    for (SeasonContribution contribution : contributions) {
+      Stats stats = season.scoring().stats(contribution.getCounters());
+      SeasonReport.Contributor contributor = new SeasonReport.Contributor();
+      contributor.setUserId(contribution.getUserId());
+      contributor.setHours(stats.getServicehours());
+      contributor.setRewards(stats.getRewards());
+      contributors.add(contributor);
+      report.setEntries(report.getEntries() + contribution.getEntries());
+      report.setHours(report.getHours() + stats.getServicehours());
+      report.setRewards(report.getRewards() + stats.getRewards());
+    }
+    report.setUsers(contributors.size());
+    contributors.sort(Comparator.comparingInt(SeasonReport.Contributor::getHours).reversed().thenComparing(SeasonReport.Contributor::getUserId));
+    report.setTop(new ArrayList<>(contributors.subList(0, Math.min(contributors.size(), TOP_CONTRIBUTORS))));
+    return report;
+  }
+
+  private static void claim(SeasonReport report, Season season, RewardClaims claim) {
+    if (claim.getReward() < 0 || claim.getReward() >= season.getRewards().size()) return;
+    RewardEntry entry = season.getRewards().get(claim.getReward());
+    claim.setName(entry.getName());
+    claim.setHours((claim.getClaimed() - claim.getFullRewards()) * new Stats(entry).getServicehours());
+    report.setClaimedHours(report.getClaimedHours() + claim.getHours());
+    report.setClaimedRewards(report.getClaimedRewards() + claim.getFullRewards());
+    report.getClaims().add(claim);
+  }
+}
@@ -1,7 +1,29 @@
 package de.maluku.serviceawards;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.List;
+import java.util.Optional;
+
 public interface SeasonRepository extends MongoRepository<Season, String> {
+  @Cacheable("latestSeason")
   Season findFirstByOrderByStartDesc();
+
+  @Override
+  @Cacheable("seasonList")
+  List<Season> findAll();
+
+  @Override
+  @Cacheable("seasons")
+  Optional<Season> findById(String id);
+
+  @Override
+  @CacheEvict(cacheNames = {"seasons", "seasonList", "latestSeason"}, allEntries = true)
+  <S extends Season> S save(S entity);
+
+  @Override
+  @CacheEvict(cacheNames = {"seasons", "seasonList", "latestSeason"}, allEntries = true)
+  void deleteById(String id);
 }
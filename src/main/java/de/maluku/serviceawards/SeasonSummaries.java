@@ -0,0 +1,157 @@
+package de.maluku.serviceawards;
+
+import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Running earned/used totals per user and season. Writes apply deltas with $inc; a summary that does not exist yet
+ * (or has to be repaired) is rebuilt from the user's rows for that season, read from the {@link SeasonArchive archive}
+ * once the season is archived.
+ * <p>
+ * Rebuilds never clobber a delta: missing summaries are only inserted if still absent ($setOnInsert), and existing
+ * ones are only replaced if their {@link SeasonSummary#getRevision() revision} did not move during the scan.
+ */
+@Component
+@AllArgsConstructor
+public class SeasonSummaries {
+  private static final int MAX_ATTEMPTS = 3;
+
+  private final MongoTemplate mongoTemplate;
+  private final SeasonRepository seasonRepository;
+  private final BatchScoring batchScoring;
+
+  public SeasonSummary get(String userId, String season) {
+    SeasonSummary summary = mongoTemplate.findById(SeasonSummary.key(userId, season), SeasonSummary.class);
+    if (summary != null) return summary;
+    SeasonSummary scanned = scan(userId, season);
+    return insert(scanned) ? scanned : mongoTemplate.findById(scanned.getId(), SeasonSummary.class);
+  }
+
+  public void earned(LogEntry entry, int sign) {
+    int[] delta = entry.counters();
+    for (int i = 0; i < delta.length; i++) {
+      delta[i] *= sign;
+    }
+    earned(entry.getUserId(), entry.getSeason(), delta);
+  }
+
+  public void earned(LogEntry before, LogEntry after) {
+    int[] delta = after.counters();
+    int[] previous = before.counters();
+    for (int i = 0; i < delta.length; i++) {
+      delta[i] -= previous[i];
+    }
+    earned(after.getUserId(), after.getSeason(), delta);
+  }
+
+  public void used(Season season, Assigment assigment, int sign) {
+    if (season == null) return;
+    Stats used = Assigment.getStats(season, List.of(assigment));
+    apply(assigment.getUserId(), assigment.getSeason(), new Update()
+      .inc("usedHours", sign * used.getServicehours())
+      .inc("usedRewards", sign * used.getRewards()));
+  }
+
+  private void earned(String userId, String season, int[] delta) {
+    Scoring scoring = seasonRepository.findById(season).map(Season::scoring).orElse(Scoring.DEFAULT);
+    apply(userId, season, new Update()
+      .inc("fullHours", scoring.fullHours(delta))
+      .inc("quarterHours", scoring.quarterHours(delta))
+      .inc("rewards", scoring.rewards(delta)));
+  }
+
+  /**
+   * Applies a delta for a row that is already written. Without a summary, the scan for a new one includes the row;
+   * if another request inserted the summary first, the delta is applied to that one instead.
+   */
+  private void apply(String userId, String season, Update update) {
+    Query summary = query(where("_id").is(SeasonSummary.key(userId, season)));
+    update.inc("revision", 1);
+    if (mongoTemplate.updateFirst(summary, update, SeasonSummary.class).getMatchedCount() == 0 && !insert(scan(userId, season))) {
+      mongoTemplate.updateFirst(summary, update, SeasonSummary.class);
+    }
+  }
+
+  /**
+   * Replaces the summary with one scanned from the user's rows, unless a delta was applied while scanning; then the
+   * scan is repeated.
+   *
+   * @throws OptimisticLockingFailureException if the summary kept changing
+   */
+  public SeasonSummary rebuild(String userId, String season) {
+    String id = SeasonSummary.key(userId, season);
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+      SeasonSummary current = mongoTemplate.findById(id, SeasonSummary.class);
+      SeasonSummary scanned = scan(userId, season);
+      if (current == null) {
+        if (insert(scanned)) return scanned;
+        continue;
+      }
+      Criteria unchanged = current.getRevision() == 0 ? where("revision").in(0L, null) : where("revision").is(current.getRevision());
+      Update update = new Update();
+      scanned.totals().forEach(update::set);
+      if (mongoTemplate.updateFirst(query(where("_id").is(id)).addCriteria(unchanged), update, SeasonSummary.class).getMatchedCount() > 0) {
+        scanned.setRevision(current.getRevision());
+        return scanned;
+      }
+    }
+    throw new OptimisticLockingFailureException("Summary " + id + " kept changing during its rebuild");
+  }
+
+  /**
+   * @return whether the summary was inserted, false if one existed already and was left as it is
+   */
+  private boolean insert(SeasonSummary summary) {
+    Update update = new Update();
+    summary.totals().forEach(update::setOnInsert);
+    return mongoTemplate.upsert(query(where("_id").is(summary.getId())), update, SeasonSummary.class).getUpsertedId() != null;
+  }
+
+  private SeasonSummary scan(String userId, String season) {
+    Optional<Season> found = seasonRepository.findById(season);
+    boolean archived = found.map(Season::isArchived).orElse(false);
+    Query rows = query(where("userId").is(userId).and("season").is(season));
+    List<LogEntry> entries = mongoTemplate.find(rows, LogEntry.class, logEntries(archived));
+    List<Assigment> assignments = mongoTemplate.find(rows, Assigment.class, assignments(archived));
+    long started = System.nanoTime();
+    Season scored = found.orElseGet(() -> Season.builder().id(season).build());
+    int[] earned = LogEntry.sum(scored, entries, assignments);
+    Stats used = found.map(s -> Assigment.getStats(s, assignments)).orElse(new Stats());
+    ServerTiming.record("stats", System.nanoTime() - started);
+    return SeasonSummary.builder()
+      .id(SeasonSummary.key(userId, season))
+      .userId(userId)
+      .season(season)
+      .earned(scored.scoring(), earned)
+      .usedHours(used.getServicehours())
+      .usedRewards(used.getRewards())
+      .build();
+  }
+
+  public void rebuild(Season season) {
+    batchScoring.rescore(season).forEach(userId -> rebuild(userId, season.getId()));
+  }
+
+  public void rebuildAll() {
+    seasonRepository.findAll().forEach(this::rebuild);
+  }
+
+  private String logEntries(boolean archived) {
+    return archived ? SeasonArchive.LOG_ENTRIES : mongoTemplate.getCollectionName(LogEntry.class);
+  }
+
+  private String assignments(boolean archived) {
+    return archived ? SeasonArchive.ASSIGNMENTS : mongoTemplate.getCollectionName(Assigment.class);
+  }
+}
@@ -0,0 +1,72 @@
+package de.maluku.serviceawards;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A user's totals for one season. Earned hours, quarter hours and rewards are the raw scores of the counted entries,
+ * in the same scale as the deltas added to them; quarter hours are only carried into hours by {@link #earned()}.
+ */
+@Document("summaries")
+@Getter
+@Setter
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class SeasonSummary {
+  @Id
+  private String id;
+  private String userId;
+  private String season;
+  private int fullHours;
+  private int quarterHours;
+  private int rewards;
+  private int usedHours;
+  private int usedRewards;
+  /** bumped by every delta, so a rebuild can tell whether the summary changed while it was scanning */
+  private long revision;
+
+  public static String key(String userId, String season) {
+    return userId + '/' + season;
+  }
+
+  public Stats earned() {
+    return new Stats(fullHours + Math.floorDiv(quarterHours, 4), rewards, Math.floorMod(quarterHours, 4));
+  }
+
+  public Stats used() {
+    return new Stats(usedHours, usedRewards, 0);
+  }
+
+  /**
+   * The stored fields a rebuild writes, everything but the id and the revision.
+   */
+  public Map<String, Object> totals() {
+    Map<String, Object> totals = new LinkedHashMap<>();
+    totals.put("userId", userId);
+    totals.put("season", season);
+    totals.put("fullHours", fullHours);
+    totals.put("quarterHours", quarterHours);
+    totals.put("rewards", rewards);
+    totals.put("usedHours", usedHours);
+    totals.put("usedRewards", usedRewards);
+    return totals;
+  }
+
+  public static class SeasonSummaryBuilder {
+    /**
+     * Sets the earned totals to the scores of {@code counters}, summed log entry counters.
+     */
+    public SeasonSummaryBuilder earned(Scoring scoring, int[] counters) {
+      return fullHours(scoring.fullHours(counters)).quarterHours(scoring.quarterHours(counters)).rewards(scoring.rewards(counters));
+    }
+  }
+}
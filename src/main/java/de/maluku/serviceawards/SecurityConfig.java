@@ -2,7 +2,7 @@ package de.maluku.serviceawards;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.config.Customizer;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -10,17 +10,23 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSecurity
 @EnableMethodSecurity(securedEnabled = true, jsr250Enabled = true)
 public class SecurityConfig {
   @Bean
-  public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+  public SecurityFilterChain filterChain(HttpSecurity http, AdminAuthorities adminAuthorities) throws Exception {
     return  http.csrf(AbstractHttpConfigurer::disable)
       .authorizeHttpRequests(reg->
         reg
           .anyRequest().permitAll()
         )
       .logout(l->l.logoutSuccessUrl("/").permitAll())
-      .oauth2Login(Customizer.withDefaults()).build();
+      .oauth2Login(o->o
+        .successHandler(adminAuthorities.loginSuccessHandler())
+        .userInfoEndpoint(u->u
+          .userService(adminAuthorities.oauth2UserService())
+          .oidcUserService(adminAuthorities.oidcUserService())))
+      .build();
   }
 }
@@ -0,0 +1,139 @@
+package de.maluku.serviceawards;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Reports where the time of a request went in a {@code Server-Timing} header, so browser devtools show the breakdown
+ * for every page and htmx swap: Mongo commands, stats computation in {@link SeasonSummaries}, the handler, view
+ * rendering, available log entries and the total. Timings are recorded at those boundaries, domain classes don't
+ * know about this filter.
+ * <p>
+ * The header is added just before the response commits, nothing is buffered: for pages larger than the response
+ * buffer, render and total run up to the first byte sent. That keeps the filter cheap enough to be on unless
+ * {@code serviceawards.server-timing=false}.
+ */
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "serviceawards.server-timing", havingValue = "true", matchIfMissing = true)
+public class ServerTiming extends OncePerRequestFilter implements MongoClientSettingsBuilderCustomizer {
+  private static final String ATTRIBUTE = ServerTiming.class.getName();
+  private static final Pattern UNTIMED = Pattern.compile("/(actuator|webjars)(/.*)?");
+
+  /**
+   * Adds {@code nanos} to {@code metric} of the current request; does nothing outside a timed request.
+   */
+  public static void record(String metric, long nanos) {
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request != null && request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Timings timings) {
+      timings.add(metric, nanos);
+    }
+  }
+
+  /**
+   * Runs {@code work} and records its time as {@code metric}.
+   */
+  public static <T> T timed(String metric, Supplier<T> work) {
+    long started = System.nanoTime();
+    try {
+      return work.get();
+    }
+    finally {
+      record(metric, System.nanoTime() - started);
+    }
+  }
+
+  @Override
+  public void customize(MongoClientSettings.Builder settings) {
+    settings.addCommandListener(new CommandListener() {
+      @Override
+      public void commandSucceeded(CommandSucceededEvent event) {
+        record("mongo", event.getElapsedTime(TimeUnit.NANOSECONDS));
+      }
+
+      @Override
+      public void commandFailed(CommandFailedEvent event) {
+        record("mongo", event.getElapsedTime(TimeUnit.NANOSECONDS));
+      }
+    });
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return UNTIMED.matcher(request.getRequestURI()).matches();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+    long started = System.nanoTime();
+    Timings timings = new Timings();
+    request.setAttribute(ATTRIBUTE, timings);
+    OnCommittedResponseWrapper wrapper = new OnCommittedResponseWrapper(response) {
+      @Override
+      protected void onResponseCommitted() {
+        sendHeader(response, timings, started);
+        disableOnResponseCommitted();
+      }
+    };
+    try {
+      chain.doFilter(request, wrapper);
+    }
+    finally {
+      if (!response.isCommitted()) {
+        sendHeader(response, timings, started);
+      }
+    }
+  }
+
+  private static void sendHeader(HttpServletResponse response, Timings timings, long started) {
+    if (!response.containsHeader("Server-Timing")) {
+      timings.add("total", System.nanoTime() - started);
+      response.setHeader("Server-Timing", timings.header());
+    }
+  }
+
+  private static final class Timings {
+    private final Map<String, long[]> metrics = new LinkedHashMap<>();
+
+    synchronized void add(String metric, long nanos) {
+      long[] total = metrics.computeIfAbsent(metric, m -> new long[2]);
+      total[0] += nanos;
+      total[1]++;
+    }
+
+    synchronized String header() {
+      StringBuilder header = new StringBuilder();
+      metrics.forEach((metric, total) -> {
+        if (!header.isEmpty()) header.append(", ");
+        header.append(metric).append(";dur=").append(String.format(Locale.ROOT, "%.1f", total[0] / 1e6));
+        if (total[1] > 1) header.append(";desc=\"").append(total[1]).append(" calls\"");
+      });
+      return header.toString();
+    }
+  }
+}
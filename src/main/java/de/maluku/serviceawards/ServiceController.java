@@ -1,12 +1,26 @@
 package de.maluku.serviceawards;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.extern.java.Log;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -16,10 +30,18 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.security.Principal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -29,21 +51,44 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 
 @Controller
+@Profile("!reactive")
 @AllArgsConstructor
 public class ServiceController {
+  private static final int MAX_WRITE_ATTEMPTS = 5;
+  private static final BiPredicate<UserStamp, List<Season>> ALWAYS_MODIFIED = (stamp, seasons) -> false;
 
   private final SeasonRepository seasonRepository;
   private final RewardLevelRepository rewardLevelRepository;
   private final UserRepository userRepository;
+  private final LogEntryRepository logEntryRepository;
+  private final AssignmentRepository assignmentRepository;
+  private final LogMutations logMutations;
+  private final SeasonSummaries summaries;
+  private final CacheManager cacheManager;
+  private final ParallelReads parallelReads;
+  private final RequestUsers users;
+  private final LogImport logImport;
+  private final LogExport logExport;
+  private final SeasonReports seasonReports;
+  private final SeasonArchive seasonArchive;
+  private final ObjectMapper objectMapper;
 
   @GetMapping("/")
   public String home(Principal principal, Model model) {
@@ -54,63 +99,266 @@ public class ServiceController {
   }
 
   @GetMapping("/admin")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String admin(Model model) {
-    testAdmin();
-    model.addAttribute("seasons",seasonRepository.findAll());
-    model.addAttribute("levels", rewardLevelRepository.findAll());
-    model.addAttribute("offset", 0);
-    Season latest = seasonRepository.findFirstByOrderByStartDesc();
-    if (latest != null) {
-      model.addAttribute(latest);
+    try (ParallelReads.Scope reads = parallelReads.open()) {
+      Supplier<List<Season>> seasons = reads.fork(seasonRepository::findAll);
+      Supplier<List<RewardLevel>> levels = reads.fork(rewardLevelRepository::findAll);
+      Supplier<Season> latest = reads.fork(seasonRepository::findFirstByOrderByStartDesc);
+      reads.join();
+      model.addAttribute("seasons", seasons.get());
+      model.addAttribute("levels", levels.get());
+      model.addAttribute("offset", 0);
+      model.addAttribute("cacheStats", cacheStats());
+      if (latest.get() != null) {
+        model.addAttribute(latest.get());
+      }
     }
     return "admin";
   }
 
+  @GetMapping("/admin/report")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
+  public String report(Model model) {
+    model.addAttribute("reports", seasonReports.build());
+    return "report";
+  }
+
+  @GetMapping("/admin/report.json")
+  @ResponseBody
+  @Secured(AdminAuthorities.ROLE_ADMIN)
+  public List<SeasonReport> reportJson() {
+    return seasonReports.build();
+  }
+
+  private Map<String, CacheStats> cacheStats() {
+    Map<String, CacheStats> stats = new TreeMap<>();
+    for (String name : cacheManager.getCacheNames()) {
+      if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+        stats.put(name, cache.getNativeCache().stats());
+      }
+    }
+    return stats;
+  }
+
   private User getUser(String uid) {
-    Optional<User> user = userRepository.findById(uid);
+    Optional<User> user = users.find(uid);
     if (user.isPresent()) {
       return user.get();
     }
-     Principal principal = SecurityContextHolder.getContext().getAuthentication();
-    if (principal != null && !(principal instanceof AnonymousAuthenticationToken) && principal.getName().equals(uid)) {
-      return new User(uid);
+    if (uid.equals(login())) {
+      try {
+        return users.insert(new User(uid));
+      }
+      catch (DuplicateKeyException e) {
+        users.clear();
+        return users.find(uid).orElseThrow();
+      }
     }
     throw new ResponseStatusException(NOT_FOUND);
   }
 
+  /**
+   * @return the name of the signed-in user, or {@code null} for anonymous requests
+   */
+  private static String login() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return authentication != null && !(authentication instanceof AnonymousAuthenticationToken) ? authentication.getName() : null;
+  }
+
+  /**
+   * Loads the user's rows of one season, from the {@link SeasonArchive archive} once the season is archived.
+   */
+  private User loadSeason(User user, String season) {
+    if (archived(season)) {
+      user.setLogEntries(new ArrayList<>(seasonArchive.logs(user.getUserId(), season)));
+      user.setAssignments(new ArrayList<>(seasonArchive.assignments(user.getUserId(), season)));
+      return user;
+    }
+    user.setLogEntries(new ArrayList<>(logEntryRepository.findByUserIdAndSeasonOrderByDateDescIdDesc(user.getUserId(), season, Limit.unlimited())));
+    user.setAssignments(new ArrayList<>(assignmentRepository.findByUserIdAndSeason(user.getUserId(), season)));
+    return user;
+  }
+
+  private Optional<LogEntry> findEntry(String uid, UUID id) {
+    return logEntryRepository.findByIdAndUserId(id, uid).or(() -> seasonArchive.entry(uid, id));
+  }
+
+  private boolean archived(String season) {
+    return seasonRepository.findById(season).map(Season::isArchived).orElse(false);
+  }
+
+  private void writable(String season) {
+    if (archived(season)) {
+      throw new ResponseStatusException(CONFLICT, "Season is archived");
+    }
+  }
+
+  private UserSeason loadOverview(String uid, String season) {
+    return (archived(season) ? userRepository.findArchivedSeason(uid, season) : userRepository.findSeason(uid, season)).orElseGet(() -> new UserSeason(getUser(uid)));
+  }
+
+  /**
+   * Answers a conditional GET for a page of {@code uid} from the user's change counter and the seasons' modification
+   * dates, before anything is loaded or rendered. The tag also varies by viewer and by full page vs htmx fragment.
+   * The user is read through {@link RequestUsers}, so the rest of the request reuses that read.
+   */
+  private boolean notModified(WebRequest request, HttpServletResponse response, String uid, boolean htmx) {
+    Optional<? extends UserStamp> stamp;
+    List<Season> seasons;
+    try (ParallelReads.Scope reads = parallelReads.open()) {
+      Supplier<Optional<User>> stampRead = reads.fork(() -> users.find(uid));
+      Supplier<List<Season>> seasonsRead = reads.fork(seasonRepository::findAll);
+      reads.join();
+      stamp = stampRead.get();
+      seasons = seasonsRead.get();
+    }
+    return notModified(request, response, uid, htmx, stamp.orElse(null), seasons);
+  }
+
+  /**
+   * {@link #notModified(WebRequest, HttpServletResponse, String, boolean)} for pages whose loading reads the user
+   * anyway: the tag is computed from that read once the page's data is loaded, only rendering is saved.
+   *
+   * @param stamp the user, {@code null} if there is none yet
+   */
+  private boolean notModified(WebRequest request, HttpServletResponse response, String uid, boolean htmx, UserStamp stamp, List<Season> seasons) {
+    response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+    response.addHeader(HttpHeaders.VARY, "HX-Request");
+    if (stamp == null) {
+      return false;
+    }
+    long modified = stamp.getModified() != null ? stamp.getModified().getTime() : -1;
+    for (Season season : seasons) {
+      if (season.getModified() != null) {
+        modified = Math.max(modified, season.getModified().getTime());
+      }
+    }
+    String etag = "\"" + stamp.getVersion() + '-' + seasons.size() + '-' + modified + '-' + viewer(uid) + (htmx ? "-h" : "-f") + "\"";
+    return htmx ? request.checkNotModified(etag) : request.checkNotModified(etag, modified);
+  }
+
+  private static char viewer(String uid) {
+    String login = login();
+    if (login == null) {
+      return 'a';
+    }
+    return login.equals(uid) ? 'o' : 'u';
+  }
+
   @GetMapping("/log/{uid}")
-  public String log(@PathVariable String uid, Model model) {
+  public String log(@PathVariable String uid, WebRequest request, HttpServletResponse response, Model model) {
+    return log(uid, (stamp, seasons) -> notModified(request, response, uid, false, stamp, seasons), model);
+  }
+
+  private String log(String uid, Model model) {
+    return log(uid, ALWAYS_MODIFIED, model);
+  }
+
+  /**
+   * @param notModified answers a conditional GET from the user and seasons the page was loaded with
+   * @return {@code null} if {@code notModified} did
+   */
+  private String log(String uid, BiPredicate<UserStamp, List<Season>> notModified, Model model) {
+    try (ParallelReads.Scope reads = parallelReads.open()) {
+      Supplier<List<Season>> seasons = reads.fork(seasonRepository::findAll);
+      Supplier<List<RewardLevel>> rewardLevels = reads.fork(rewardLevelRepository::findAll);
+      Supplier<Season> latestRead = reads.fork(seasonRepository::findFirstByOrderByStartDesc);
+      reads.join();
+      model.addAttribute("seasons", seasons.get());
+      model.addAttribute("edit", null);
+      model.addAttribute("add", -1);
+      model.addAttribute("rewardLevels", rewardLevels.get());
+      Season latest = latestRead.get();
+      if (latest != null) {
+        Supplier<UserSeason> overview = reads.fork(() -> loadOverview(uid, latest.getId()));
+        Supplier<SeasonSummary> summary = reads.fork(() -> summaries.get(uid, latest.getId()));
+        reads.join();
+        UserSeason data = overview.get();
+        if (notModified.test(data, seasons.get())) {
+          return null;
+        }
+        User user = data.toUser();
+        model.addAttribute("user", user);
+        model.addAttribute("locations", data.getLocations());
+        model.addAttribute("characters", data.getCharacters());
+        model.addAttribute("season", latest);
+        model.addAttribute("view", OverviewView.firstPage(user, latest, -1, summary.get()));
+      } else {
+        Supplier<User> user = reads.fork(() -> getUser(uid));
+        Supplier<List<String>> locations = reads.fork(() -> logEntryRepository.findLocations(uid));
+        Supplier<List<String>> characters = reads.fork(() -> assignmentRepository.findCharacters(uid));
+        reads.join();
+        if (notModified.test(user.get(), seasons.get())) {
+          return null;
+        }
+        model.addAttribute("user", user.get());
+        model.addAttribute("locations", locations.get());
+        model.addAttribute("characters", characters.get());
+        model.addAttribute("view", OverviewView.builder().earned(new Stats()).used(new Stats()).build());
+      }
+    }
+    return "overview";
+  }
+
+  @GetMapping("/log/{uid}/{id}/page")
+  public String logPage(@PathVariable String uid, @PathVariable String id, @RequestParam UUID after, @RequestParam(required = false) Long date, WebRequest request, HttpServletResponse response, Model model) {
+    if (notModified(request, response, uid, true)) {
+      return null;
+    }
     User user = getUser(uid);
-    model.addAttribute("seasons",seasonRepository.findAll());
-    model.addAttribute("offset", 0);
+    Optional<Season> season = seasonRepository.findById(id);
+    if (season.isEmpty()) {
+      throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
+    }
+    List<LogEntry> page;
+    if (season.get().isArchived()) {
+      user.setAssignments(seasonArchive.assignments(uid, id));
+      page = seasonArchive.pageAfter(uid, id, date != null ? new Date(date) : null, after, OverviewView.PAGE_SIZE + 1);
+    }
+    else {
+      user.setAssignments(assignmentRepository.findByUserIdAndSeason(uid, id));
+      Limit limit = Limit.of(OverviewView.PAGE_SIZE + 1);
+      page = date != null
+        ? logEntryRepository.findPageAfter(uid, id, new Date(date), after, limit)
+        : logEntryRepository.findUndatedPageAfter(uid, id, after, limit);
+    }
     model.addAttribute("edit", null);
-    model.addAttribute("add", -1);
     model.addAttribute("user", user);
-    model.addAttribute("locations", user.locations());
-    model.addAttribute("characters", user.characters());
-    model.addAttribute("rewardLevels", rewardLevelRepository.findAll());
-    Season latest = seasonRepository.findFirstByOrderByStartDesc();
-    if (latest != null) {
-      model.addAttribute("season", latest);
-      model.addAttribute("assignableLogs", user.available(latest.getId()));
-      model.addAttribute("earned", LogEntry.getStats(latest.getId(), user.getLogEntries(), user.getAssignments()));
-      model.addAttribute("used", Assigment.getStats(latest, user.getAssignments()));
-    } else {
-      model.addAttribute("assignableLogs", Collections.emptyList());
-      model.addAttribute("earned", new Stats());
-      model.addAttribute("used", new Stats());
-    }
-    return "overview";
+    model.addAttribute("season", season.get());
+    model.addAttribute("logPage", true);
+    model.addAttribute("view", OverviewView.ofLogs(user, season.get(), page.subList(0, Math.min(page.size(), OverviewView.PAGE_SIZE))).withNextPage(OverviewView.nextPage(uid, id, page)));
+    return "overview :: logpage";
   }
 
   private User ensureLogin(User user) {
-    Principal principal = SecurityContextHolder.getContext().getAuthentication();
-    if (principal != null && !(principal instanceof AnonymousAuthenticationToken) && principal.getName().equals(user.getUserId())) {
+    if (user.getUserId().equals(login())) {
       return user;
     }
     throw new ResponseStatusException(FORBIDDEN);
   }
 
+  private String retrying(Supplier<String> write) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return write.get();
+      }
+      catch (OptimisticLockingFailureException e) {
+        users.clear();
+        if (attempt >= MAX_WRITE_ATTEMPTS) {
+          throw new ResponseStatusException(CONFLICT, "Concurrent modification", e);
+        }
+        try {
+          Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L << attempt));
+        }
+        catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new ResponseStatusException(CONFLICT, "Concurrent modification", e);
+        }
+      }
+    }
+  }
+
   @PostMapping("/log/{uid}/{id}/{index}")
   public String assign(
     @PathVariable String uid,
@@ -125,49 +373,62 @@ public class ServiceController {
     @RequestParam(required = false) String entryAsPlayer,
     @RequestParam(defaultValue = "false") boolean fullRewards,
     @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, HttpServletResponse response, Model model) {
-    User user = ensureLogin(getUser(uid));
-    Optional<Season> latest = seasonRepository.findById(id);
-    if (latest.isEmpty() || index < 0 || index >= latest.get().getRewards().size()) {
-      throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
-    }
-    UUID entry = entryAsPlayer != null && !entryAsPlayer.isEmpty() ? UUID.fromString(entryAsPlayer) : null;
-    Assigment assigment = Assigment.builder()
-      .note(note)
-      .levelUpCharacter(levelUpCharacter)
-      .rewardCharacter(rewardCharacter)
-      .assignedReward(assignedReward != null ? Date.from(assignedReward.toInstant(ZoneOffset.UTC)) : null)
-      .assignedLevel(assignedLevel != null ? Date.from(assignedLevel.toInstant(ZoneOffset.UTC)) : null)
-      .entryAsPlayer(entry)
-      .reward(index)
-      .title(title)
-      .fullReward(fullRewards)
-      .season(id)
-      .build();
-
-    user.getAssignments().add(assigment);
-    user = userRepository.save(user);
-    RewardEntry reward = latest.get().getRewards().get(index);
-    if (htmx) {
-      model.addAttribute("offset", index);
-      model.addAttribute("edit", null);
-      model.addAttribute("add", reward.isRepeatable() ? index : -1);
-      model.addAttribute("season", Season.builder().id(latest.get().getId()).rewards(List.of(reward)).build());
-      model.addAttribute("savedAssignment", true);
-      model.addAttribute("characters", user.characters());
-      model.addAttribute("earned", LogEntry.getStats(latest.get().getId(), user.getLogEntries(), user.getAssignments()));
-      model.addAttribute("used", Assigment.getStats(latest.get(), user.getAssignments()));
-      model.addAttribute("assignableLogs", user.available(latest.get().getId()));
-      response.addHeader("HX-Push-Url", "/log/" + uid + "/" + id + (reward.isRepeatable() ? "/" + index : ""));
-      response.addHeader("HX-Trigger", "logsChanged");
-      if (entry != null) {
-        response.addHeader("HX-Trigger-After-Settle", "UpdateLog"+entry);
+    return retrying(() -> {
+      User user = ensureLogin(getUser(uid));
+      Optional<Season> latest = seasonRepository.findById(id);
+      if (latest.isEmpty() || index < 0 || index >= latest.get().getRewards().size()) {
+        throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
       }
-      model.addAttribute("user", user);
-      return "overview :: reward";
-    }
-    else {
-      return "redirect:/log/" + uid + '/' + id + (reward.isRepeatable() ? "/" + index : "");
-    }
+      if (latest.get().isArchived()) {
+        throw new ResponseStatusException(CONFLICT, "Season is archived");
+      }
+      RewardEntry reward = latest.get().getRewards().get(index);
+      loadSeason(user, id);
+      UUID entry = entryAsPlayer != null && !entryAsPlayer.isEmpty() ? UUID.fromString(entryAsPlayer) : null;
+      if (!reward.isRepeatable() && !user.find(id, index).isEmpty()) {
+        throw new ResponseStatusException(CONFLICT, "Reward is already assigned");
+      }
+      if (entry != null && ServerTiming.timed("available", () -> user.available(id)).stream().noneMatch(l -> l.getId().equals(entry))) {
+        throw new ResponseStatusException(CONFLICT, "Log is assigned to Reward");
+      }
+      Assigment assigment = Assigment.builder()
+        .note(note)
+        .levelUpCharacter(levelUpCharacter)
+        .rewardCharacter(rewardCharacter)
+        .assignedReward(assignedReward != null ? Date.from(assignedReward.toInstant(ZoneOffset.UTC)) : null)
+        .assignedLevel(assignedLevel != null ? Date.from(assignedLevel.toInstant(ZoneOffset.UTC)) : null)
+        .entryAsPlayer(entry)
+        .reward(index)
+        .title(title)
+        .fullReward(fullRewards)
+        .season(id)
+        .userId(uid)
+        .build();
+
+      logMutations.addAssignment(assigment, user.getVersion(), latest.get());
+      user.addAssignment(assigment);
+      if (htmx) {
+        Season slice = Season.builder().id(latest.get().getId()).rewards(List.of(reward)).build();
+        int add = reward.isRepeatable() ? index : -1;
+        model.addAttribute("edit", null);
+        model.addAttribute("add", add);
+        model.addAttribute("season", slice);
+        model.addAttribute("savedAssignment", true);
+        model.addAttribute("characters", assignmentRepository.findCharacters(uid));
+        SeasonSummary summary = summaries.get(uid, latest.get().getId());
+        model.addAttribute("view", OverviewView.of(user, slice, index, add, List.of(), summary.earned(), summary.used()));
+        response.addHeader("HX-Push-Url", "/log/" + uid + "/" + id + (reward.isRepeatable() ? "/" + index : ""));
+        response.addHeader("HX-Trigger", "logsChanged");
+        if (entry != null) {
+          response.addHeader("HX-Trigger-After-Settle", "UpdateLog"+entry);
+        }
+        model.addAttribute("user", user);
+        return "overview :: reward";
+      }
+      else {
+        return "redirect:/log/" + uid + '/' + id + (reward.isRepeatable() ? "/" + index : "");
+      }
+    });
   }
 
   @PostMapping("/log/{uid}/{id}/{reward}/{index}")
@@ -185,53 +446,62 @@ public class ServiceController {
     @RequestParam(required = false) String entryAsPlayer,
     @RequestParam(defaultValue = "false") boolean fullRewards,
     @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, HttpServletResponse response, Model model) {
-    User user = ensureLogin(getUser(uid));
-    Optional<Assigment> a = user.getAssignments().stream().filter(aa-> Objects.equals(id, aa.getSeason()) && reward == aa.getReward()).skip(index).findFirst();
-    Optional<Season> latest = seasonRepository.findById(id);
-    if (latest.isEmpty() || index < 0 || index >= latest.get().getRewards().size()) {
-      throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
-    }
-    if (a.isEmpty()) {
-      throw new ResponseStatusException(NOT_FOUND, "Unable to find assignment");
-    }
-    UUID entry = entryAsPlayer != null && !entryAsPlayer.isEmpty() ? UUID.fromString(entryAsPlayer) : null;
-    Assigment assigment = a.get();
-    UUID oldEntry = assigment.getEntryAsPlayer();
-    assigment.setNote(note);
-    assigment.setLevelUpCharacter(levelUpCharacter);
-    assigment.setEntryAsPlayer(entry);
-    assigment.setFullReward(fullRewards);
-    assigment.setTitle(title);
-    assigment.setRewardCharacter(rewardCharacter);
-    assigment.setAssignedLevel(assignedLevel != null ? Date.from(assignedLevel.toInstant(ZoneOffset.UTC)) : null);
-    assigment.setAssignedReward(assignedReward != null ? Date.from(assignedReward.toInstant(ZoneOffset.UTC)) : null);
-
-    user = userRepository.save(user);
-    RewardEntry rewardEntry = latest.get().getRewards().get(reward);
-    if (htmx) {
-      model.addAttribute("offset", reward);
-      model.addAttribute("edit", null);
-      model.addAttribute("add", rewardEntry.isRepeatable() ? reward : -1);
-      model.addAttribute("season", Season.builder().id(latest.get().getId()).rewards(List.of(rewardEntry)).build());
-      model.addAttribute("savedAssignment", true);
-      model.addAttribute("characters", user.characters());
-      model.addAttribute("earned", LogEntry.getStats(latest.get().getId(), user.getLogEntries(), user.getAssignments()));
-      model.addAttribute("used", Assigment.getStats(latest.get(), user.getAssignments()));
-      model.addAttribute("assignableLogs", user.available(latest.get().getId()));
-      response.addHeader("HX-Push-Url", "/log/" + uid + "/" + id + (rewardEntry.isRepeatable() ? "/" + reward : ""));
-      response.addHeader("HX-Trigger", "logsChanged");
-      if (!Objects.equals(oldEntry, entry)) {
-        List<String> events = new ArrayList<>();
-        if (oldEntry != null) events.add("UpdateLog"+oldEntry);
-        if (entry != null) events.add("UpdateLog"+entry);
-        response.addHeader("HX-Trigger-After-Settle", String.join(",", events));
+    return retrying(() -> {
+      writable(id);
+      User user = loadSeason(ensureLogin(getUser(uid)), id);
+      Optional<Assigment> a = user.find(id, reward).stream().skip(index).findFirst();
+      Optional<Season> latest = seasonRepository.findById(id);
+      if (latest.isEmpty() || index < 0 || index >= latest.get().getRewards().size()) {
+        throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
       }
-      model.addAttribute("user", user);
-      return "overview :: reward";
-    }
-    else {
-      return "redirect:/log/" + uid + '/' + id + (rewardEntry.isRepeatable() ? "/" + reward : "");
-    }
+      if (a.isEmpty()) {
+        throw new ResponseStatusException(NOT_FOUND, "Unable to find assignment");
+      }
+      UUID entry = entryAsPlayer != null && !entryAsPlayer.isEmpty() ? UUID.fromString(entryAsPlayer) : null;
+      Assigment assigment = a.get();
+      UUID oldEntry = assigment.getEntryAsPlayer();
+      if (entry != null && ServerTiming.timed("available", () -> user.available(id, oldEntry)).stream().noneMatch(l -> l.getId().equals(entry))) {
+        throw new ResponseStatusException(CONFLICT, "Log is assigned to Reward");
+      }
+      assigment.setNote(note);
+      assigment.setLevelUpCharacter(levelUpCharacter);
+      assigment.setEntryAsPlayer(entry);
+      assigment.setFullReward(fullRewards);
+      assigment.setTitle(title);
+      assigment.setRewardCharacter(rewardCharacter);
+      assigment.setAssignedLevel(assignedLevel != null ? Date.from(assignedLevel.toInstant(ZoneOffset.UTC)) : null);
+      assigment.setAssignedReward(assignedReward != null ? Date.from(assignedReward.toInstant(ZoneOffset.UTC)) : null);
+      user.invalidate();
+
+      if (logMutations.updateAssignment(uid, assigment.getId(), assigment, user.getVersion(), latest.get()).isEmpty()) {
+        throw new ResponseStatusException(NOT_FOUND, "Unable to find assignment");
+      }
+      RewardEntry rewardEntry = latest.get().getRewards().get(reward);
+      if (htmx) {
+        Season slice = Season.builder().id(latest.get().getId()).rewards(List.of(rewardEntry)).build();
+        int add = rewardEntry.isRepeatable() ? reward : -1;
+        model.addAttribute("edit", null);
+        model.addAttribute("add", add);
+        model.addAttribute("season", slice);
+        model.addAttribute("savedAssignment", true);
+        model.addAttribute("characters", assignmentRepository.findCharacters(uid));
+        SeasonSummary summary = summaries.get(uid, latest.get().getId());
+        model.addAttribute("view", OverviewView.of(user, slice, reward, add, List.of(), summary.earned(), summary.used()));
+        response.addHeader("HX-Push-Url", "/log/" + uid + "/" + id + (rewardEntry.isRepeatable() ? "/" + reward : ""));
+        response.addHeader("HX-Trigger", "logsChanged");
+        if (!Objects.equals(oldEntry, entry)) {
+          List<String> events = new ArrayList<>();
+          if (oldEntry != null) events.add("UpdateLog"+oldEntry);
+          if (entry != null) events.add("UpdateLog"+entry);
+          response.addHeader("HX-Trigger-After-Settle", String.join(",", events));
+        }
+        model.addAttribute("user", user);
+        return "overview :: reward";
+      }
+      else {
+        return "redirect:/log/" + uid + '/' + id + (rewardEntry.isRepeatable() ? "/" + reward : "");
+      }
+    });
   }
 
   @PostMapping("/entry/{uid}/{id}")
@@ -257,45 +527,43 @@ public class ServiceController {
     @RequestParam(defaultValue = "0") int addRewards,
     @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, HttpServletResponse response, Model model) {
     User user = ensureLogin(getUser(uid));
-    UUID uuid = UUID.fromString(id);
-    Optional<LogEntry> e = user.getLogEntries().stream().filter(l->l.getId().equals(uuid)).findFirst();
+    LogEntry changes = new LogEntry();
+    changes.setDate(date != null ? Date.from(date.toInstant(ZoneOffset.UTC)) : null);
+    changes.setTitle(title);
+    changes.setAddFullRewards(addRewards);
+    changes.setAddServiceHours(addHours);
+    changes.setCodeOfConduct(codeOfConduct);
+    changes.setNotes(notes);
+    changes.setDm(dm);
+    changes.setPrepTime(prep);
+    changes.setSafetyTools(safetyTools);
+    changes.setNewPlayers(newPlayers);
+    changes.setMentoring(mentoring);
+    changes.setLearnToPlay(learnToPlay);
+    changes.setReviewing(reviewing);
+    changes.setEventOrga(eventOrga);
+    changes.setStreaming(streaming);
+    changes.setEventStaffing(staffing);
+    changes.setLocation(location);
+    Optional<LogEntry> e = logMutations.updateLog(uid, UUID.fromString(id), changes);
     if (e.isEmpty()) {
       throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
     }
     LogEntry entry = e.get();
     Season latest = seasonRepository.findById(entry.getSeason()).orElse(seasonRepository.findFirstByOrderByStartDesc());
-    entry.setDate(date != null ? Date.from(date.toInstant(ZoneOffset.UTC)) : null);
-    entry.setTitle(title);
-    entry.setAddFullRewards(addRewards);
-    entry.setAddServiceHours(addHours);
-    entry.setCodeOfConduct(codeOfConduct);
-    entry.setNotes(notes);
-    entry.setDm(dm);
-    entry.setPrepTime(prep);
-    entry.setSafetyTools(safetyTools);
-    entry.setNewPlayers(newPlayers);
-    entry.setMentoring(mentoring);
-    entry.setLearnToPlay(learnToPlay);
-    entry.setReviewing(reviewing);
-    entry.setEventOrga(eventOrga);
-    entry.setStreaming(streaming);
-    entry.setEventStaffing(staffing);
-    entry.setLocation(location);
-    user = userRepository.save(user);
+    loadSeason(user, latest.getId());
     if (htmx) {
-      model.addAttribute("offset", 0);
       model.addAttribute("edit", null);
       model.addAttribute("add", -1);
       model.addAttribute("season", latest);
       model.addAttribute("saved", true);
-      model.addAttribute("locations", user.locations());
-      model.addAttribute("characters", user.characters());
-      model.addAttribute("earned", LogEntry.getStats(latest.getId(), user.getLogEntries(), user.getAssignments()));
-      model.addAttribute("used", Assigment.getStats(latest, user.getAssignments()));
-      model.addAttribute("assignableLogs", user.available(latest.getId()));
+      model.addAttribute("locations", logEntryRepository.findLocations(uid));
+      model.addAttribute("characters", assignmentRepository.findCharacters(uid));
+      SeasonSummary summary = summaries.get(uid, latest.getId());
+      model.addAttribute("view", OverviewView.of(user, latest, 0, -1, List.of(entry), summary.earned(), summary.used()));
       response.addHeader("HX-Push-Url", "/log/" + uid + "/" + latest.getId());
       response.addHeader("HX-Trigger", "logsChanged");
-      model.addAttribute("user", User.builder().userId(user.getUserId()).logEntries(List.of(entry)).assignments(user.getAssignments()).build());
+      model.addAttribute("user", user);
       return "overview :: log";
     }
     else {
@@ -304,6 +572,56 @@ public class ServiceController {
 
   }
 
+  /**
+   * Imports a CSV or JSON file of log entries, answering with one line of JSON progress per batch.
+   */
+  @PostMapping("/import/{uid}")
+  public void importLogs(@PathVariable String uid, @RequestParam MultipartFile file, HttpServletResponse response) throws IOException {
+    ensureLogin(getUser(uid));
+    response.setContentType("application/x-ndjson");
+    OutputStream out = response.getOutputStream();
+    logImport.run(uid, file.getInputStream(), LogImport.Format.of(file.getOriginalFilename(), file.getContentType()), progress -> {
+      try {
+        out.write(objectMapper.writeValueAsBytes(progress));
+        out.write('\n');
+        out.flush();
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /**
+   * Exports a user's data as NDJSON, or one part of it as CSV. Only the owner and admins may export.
+   */
+  @GetMapping("/export/{uid}")
+  public ResponseEntity<StreamingResponseBody> export(@PathVariable String uid, @RequestParam(defaultValue = "ndjson") String format, @RequestParam(required = false) String part) {
+    getUser(uid);
+    if (viewer(uid) != 'o') {
+      testAdmin();
+    }
+    LogExport.Format f = LogExport.Format.of(format);
+    LogExport.Part p = LogExport.Part.of(part);
+    return export(uid, f, p, out -> logExport.user(uid, f, p, out));
+  }
+
+  @GetMapping("/admin/export")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
+  public ResponseEntity<StreamingResponseBody> exportAll(@RequestParam(defaultValue = "ndjson") String format, @RequestParam(required = false) String part) {
+    LogExport.Format f = LogExport.Format.of(format);
+    LogExport.Part p = LogExport.Part.of(part);
+    return export("serviceawards", f, p, out -> logExport.all(f, p, out));
+  }
+
+  private static ResponseEntity<StreamingResponseBody> export(String name, LogExport.Format format, LogExport.Part part, StreamingResponseBody body) {
+    String filename = name + (part != null ? "-" + part.name().toLowerCase(Locale.ROOT) : "") + '.' + format.extension;
+    return ResponseEntity.ok()
+      .contentType(MediaType.parseMediaType(format.contentType))
+      .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+      .body(body);
+  }
+
   @PostMapping("/log/{uid}/{id}")
   public String newLog(
     @PathVariable String uid,
@@ -332,7 +650,11 @@ public class ServiceController {
       throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
     }
     Season latest = e.get();
+    if (latest.isArchived()) {
+      throw new ResponseStatusException(CONFLICT, "Season is archived");
+    }
     LogEntry entry = new LogEntry();
+    entry.setUserId(uid);
     entry.setSeason(latest.getId());
     entry.setDate(date != null ? Date.from(date.toInstant(ZoneOffset.UTC)) : null);
     entry.setTitle(title);
@@ -351,22 +673,20 @@ public class ServiceController {
     entry.setStreaming(streaming);
     entry.setEventStaffing(staffing);
     entry.setLocation(location);
-    user.getLogEntries().add(entry);
-    user = userRepository.save(user);
+    logMutations.addLog(entry);
+    loadSeason(user, latest.getId());
     if (htmx) {
-      model.addAttribute("offset", 0);
       model.addAttribute("edit", null);
       model.addAttribute("add", -1);
       model.addAttribute("season", latest);
       model.addAttribute("saved", true);
-      model.addAttribute("locations", user.locations());
-      model.addAttribute("characters", user.characters());
-      model.addAttribute("earned", LogEntry.getStats(latest.getId(), user.getLogEntries(), user.getAssignments()));
-      model.addAttribute("used", Assigment.getStats(latest, user.getAssignments()));
-      model.addAttribute("assignableLogs", user.available(latest.getId()));
+      model.addAttribute("locations", logEntryRepository.findLocations(uid));
+      model.addAttribute("characters", assignmentRepository.findCharacters(uid));
+      SeasonSummary summary = summaries.get(uid, latest.getId());
+      model.addAttribute("view", OverviewView.of(user, latest, 0, -1, List.of(entry), summary.earned(), summary.used()));
       response.addHeader("HX-Push-Url", "/log/" + uid + "/" + id);
       response.addHeader("HX-Trigger", "logsChanged");
-      model.addAttribute("user", User.builder().userId(user.getUserId()).logEntries(List.of(entry)).build());
+      model.addAttribute("user", user);
       return "overview :: log";
     }
     else {
@@ -377,9 +697,8 @@ public class ServiceController {
 
   @GetMapping("/delete/{uid}/{id}")
   public String deleteConfirm(@PathVariable String uid, @PathVariable String id, Model model) {
-    User user = ensureLogin(getUser(uid));
-    UUID uuid = UUID.fromString(id);
-    Optional<LogEntry> entry = user.getLogEntries().stream().filter(l->l.getId().equals(uuid)).findFirst();
+    ensureLogin(getUser(uid));
+    Optional<LogEntry> entry = logEntryRepository.findByIdAndUserId(UUID.fromString(id), uid);
     if (entry.isPresent()) {
       model.addAttribute("deleteConfirm", entry.get());
       return log(uid, entry.get().getSeason(), false, null, model);
@@ -389,8 +708,8 @@ public class ServiceController {
 
   @GetMapping("/delete/{uid}/{id}/{reward}/{index}")
   public String deleteConfirm(@PathVariable String uid, @PathVariable String id, @PathVariable int reward, @PathVariable int index, Model model) {
-    User user = ensureLogin(getUser(uid));
-    Optional<Assigment> entry = user.getAssignments().stream().filter(a-> Objects.equals(id, a.getSeason()) && reward == a.getReward()).skip(index).findFirst();
+    ensureLogin(getUser(uid));
+    Optional<Assigment> entry = assignmentRepository.findByUserIdAndSeasonAndReward(uid, id, reward).stream().sorted(Assigment.SLOT_ORDER).skip(index).findFirst();
     if (entry.isPresent()) {
       model.addAttribute("deleteConfirmAssignmemnt", entry.get());
       model.addAttribute("deleteConfirmIndex", index);
@@ -401,44 +720,44 @@ public class ServiceController {
 
   @PostMapping("/available/{uid}/{id}")
   public String getAvailable(@PathVariable String uid, @PathVariable String id, @RequestParam(required = false) String entryAsPlayer, Model model) {
-    User user = getUser(uid);
+    User user = loadSeason(getUser(uid), id);
     model.addAttribute("updateAvailable", true);
     if (entryAsPlayer != null && !entryAsPlayer.isEmpty()) {
       UUID uuid = UUID.fromString(entryAsPlayer);
       model.addAttribute("entryAsPlayer", uuid);
-      model.addAttribute("assignableLogs", user.available(id, uuid));
+      model.addAttribute("view", OverviewView.builder().assignableLogs(ServerTiming.timed("available", () -> user.available(id, uuid))).build());
     }
     else {
-      model.addAttribute("assignableLogs", user.available(id));
+      model.addAttribute("view", OverviewView.builder().assignableLogs(ServerTiming.timed("available", () -> user.available(id))).build());
     }
     return "overview :: available";
   }
 
   @PostMapping("/delete/{uid}/{id}")
   public String deleteLog(@PathVariable String uid, @PathVariable String id) {
-    User user = ensureLogin(getUser(uid));
-    UUID uuid = UUID.fromString(id);
-    Optional<LogEntry> entry = user.getLogEntries().stream().filter(l->l.getId().equals(uuid)).findFirst();
-    if (entry.isEmpty()) {
-      throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
-    }
-    if (user.getAssignments().stream().anyMatch(a->entry.get().getId().equals(a.getEntryAsPlayer()))) {
-      throw new ResponseStatusException(NOT_MODIFIED, "Log is assigned to Reward");
-    }
-    user.getLogEntries().removeIf(logEntry -> logEntry.getId().equals(uuid));
-    userRepository.save(user);
-    return "redirect:/log/" + uid + '/' + entry.get().getSeason();
+    return retrying(() -> {
+      User user = ensureLogin(getUser(uid));
+      UUID uuid = UUID.fromString(id);
+      if (assignmentRepository.existsByUserIdAndEntryAsPlayer(uid, uuid)) {
+        throw new ResponseStatusException(NOT_MODIFIED, "Log is assigned to Reward");
+      }
+      Optional<LogEntry> entry = logMutations.removeLog(uid, uuid, user.getVersion());
+      if (entry.isEmpty()) {
+        throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
+      }
+      return "redirect:/log/" + uid + '/' + entry.get().getSeason();
+    });
   }
 
   @PostMapping("/delete/{uid}/{id}/{reward}/{index}")
   public String deleteAssignment(@PathVariable String uid, @PathVariable String id, @PathVariable int reward, @PathVariable int index) {
-    User user = ensureLogin(getUser(uid));
-    Optional<Assigment> entry = user.getAssignments().stream().filter(a-> Objects.equals(id, a.getSeason()) && reward == a.getReward()).skip(index).findFirst();
+    ensureLogin(getUser(uid));
+    writable(id);
+    Optional<Assigment> entry = assignmentRepository.findByUserIdAndSeasonAndReward(uid, id, reward).stream().sorted(Assigment.SLOT_ORDER).skip(index).findFirst();
     if (entry.isEmpty()) {
       throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
     }
-    user.getAssignments().remove(entry.get());
-    userRepository.save(user);
+    logMutations.removeAssignment(uid, entry.get().getId(), seasonRepository.findById(id).orElse(null));
     return "redirect:/log/" + uid + '/' + entry.get().getSeason();
   }
 
@@ -446,107 +765,127 @@ public class ServiceController {
   @DeleteMapping("/log/{uid}/{id}/{reward}/{index}")
   public String deleteAssignment(@PathVariable String uid, @PathVariable String id, @PathVariable int reward, @PathVariable int index, HttpServletResponse response, Model model) {
     User user = ensureLogin(getUser(uid));
-    Optional<Assigment> entry = user.getAssignments().stream().filter(a-> Objects.equals(id, a.getSeason()) && reward == a.getReward()).skip(index).findFirst();
+    writable(id);
+    Optional<Assigment> entry = assignmentRepository.findByUserIdAndSeasonAndReward(uid, id, reward).stream().sorted(Assigment.SLOT_ORDER).skip(index).findFirst();
     if (entry.isEmpty()) {
       throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
     }
-    user.getAssignments().remove(entry.get());
-    user = userRepository.save(user);
+    logMutations.removeAssignment(uid, entry.get().getId(), seasonRepository.findById(id).orElse(null));
     Season latest = seasonRepository.findById(entry.get().getSeason()).orElse(seasonRepository.findFirstByOrderByStartDesc());
+    loadSeason(user, latest.getId());
     model.addAttribute("season", latest);
     response.addHeader("HX-Push-Url", "/log/" + uid + "/" + latest.getId() + "/" + reward);
     response.addHeader("HX-Trigger", "logsChanged");
     if (entry.get().getEntryAsPlayer() != null) {
       response.addHeader("HX-Trigger-After-Settle", "UpdateLog"+entry.get().getEntryAsPlayer());
     }
-    model.addAttribute("offset", reward);
     model.addAttribute("edit", null);
     model.addAttribute("add", reward);
-    model.addAttribute("used", Assigment.getStats(latest, user.getAssignments()));
-    model.addAttribute("earned", LogEntry.getStats(latest.getId(), user.getLogEntries(), user.getAssignments()));
     model.addAttribute("locations", Collections.emptyList());
-    model.addAttribute("characters", user.characters());
+    model.addAttribute("characters", assignmentRepository.findCharacters(uid));
     model.addAttribute("savedAssignment", true);
-    model.addAttribute("assignableLogs", user.available(latest.getId()));
     model.addAttribute("user", user);
     RewardEntry rewardentry = new RewardEntry();
     List<RewardEntry> list = latest.getRewards();
     if (index >= 0 && reward < list.size()) rewardentry = list.get(reward);
-    model.addAttribute("season", Season.builder().id(id).rewards(List.of(rewardentry)).build());
+    Season slice = Season.builder().id(id).rewards(List.of(rewardentry)).build();
+    model.addAttribute("season", slice);
+    SeasonSummary summary = summaries.get(uid, latest.getId());
+    model.addAttribute("view", OverviewView.of(user, slice, reward, reward, List.of(), summary.earned(), summary.used()));
     return "overview :: reward";
   }
 
   @DeleteMapping("/entry/{uid}/{id}")
   public String deleteLog(@PathVariable String uid, @PathVariable String id, HttpServletResponse response, Model model) {
-    User user = ensureLogin(getUser(uid));
-    UUID uuid = UUID.fromString(id);
-    Optional<LogEntry> entry = user.getLogEntries().stream().filter(l->l.getId().equals(uuid)).findFirst();
-    if (entry.isEmpty()) {
-      throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
-    }
-    if (user.getAssignments().stream().anyMatch(a->entry.get().getId().equals(a.getEntryAsPlayer()))) {
-      throw new ResponseStatusException(NOT_MODIFIED, "Log is assigned to Reward");
-    }
-    user.getLogEntries().removeIf(logEntry -> logEntry.getId().equals(uuid));
-    user = userRepository.save(user);
-    Season latest = seasonRepository.findById(entry.get().getSeason()).orElse(seasonRepository.findFirstByOrderByStartDesc());
-    model.addAttribute("season", latest);
-    response.addHeader("HX-Push-Url", "/log/" + uid + "/" + latest.getId());
-    response.addHeader("HX-Trigger", "logsChanged");
-    model.addAttribute("user", User.builder().userId(user.getUserId()).logEntries(List.of()).build());
-    model.addAttribute("offset", 0);
-    model.addAttribute("edit", null);
-    model.addAttribute("add", -1);
-    model.addAttribute("season", latest);
-    model.addAttribute("used", Assigment.getStats(latest, user.getAssignments()));
-    model.addAttribute("earned", LogEntry.getStats(latest.getId(), user.getLogEntries(), user.getAssignments()));
-    model.addAttribute("locations", Collections.emptyList());
-    model.addAttribute("characters", user.characters());
-    model.addAttribute("deleted", "true");
-    model.addAttribute("assignableLogs", user.available(latest.getId()));
-    return "overview :: deletedlog";
+    return retrying(() -> {
+      User user = ensureLogin(getUser(uid));
+      UUID uuid = UUID.fromString(id);
+      if (assignmentRepository.existsByUserIdAndEntryAsPlayer(uid, uuid)) {
+        throw new ResponseStatusException(NOT_MODIFIED, "Log is assigned to Reward");
+      }
+      Optional<LogEntry> entry = logMutations.removeLog(uid, uuid, user.getVersion());
+      if (entry.isEmpty()) {
+        throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
+      }
+      Season latest = seasonRepository.findById(entry.get().getSeason()).orElse(seasonRepository.findFirstByOrderByStartDesc());
+      loadSeason(user, latest.getId());
+      model.addAttribute("season", latest);
+      response.addHeader("HX-Push-Url", "/log/" + uid + "/" + latest.getId());
+      response.addHeader("HX-Trigger", "logsChanged");
+      model.addAttribute("user", user);
+      model.addAttribute("edit", null);
+      model.addAttribute("add", -1);
+      model.addAttribute("season", latest);
+      SeasonSummary summary = summaries.get(uid, latest.getId());
+      model.addAttribute("view", OverviewView.of(user, latest, 0, -1, List.of(), summary.earned(), summary.used()));
+      model.addAttribute("locations", Collections.emptyList());
+      model.addAttribute("characters", assignmentRepository.findCharacters(uid));
+      model.addAttribute("deleted", "true");
+      return "overview :: deletedlog";
+    });
   }
 
   @GetMapping("/log/{uid}/{id}")
-  public String log(@PathVariable String uid, @PathVariable String id, @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, HttpServletResponse response, Model model) {
-    User user = getUser(uid);
-    model.addAttribute("offset", 0);
+  public String log(@PathVariable String uid, @PathVariable String id, @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, WebRequest request, HttpServletResponse response, Model model) {
+    return log(uid, id, htmx, response, (stamp, seasons) -> notModified(request, response, uid, htmx, stamp, seasons), model);
+  }
+
+  private String log(String uid, String id, boolean htmx, HttpServletResponse response, Model model) {
+    return log(uid, id, htmx, response, ALWAYS_MODIFIED, model);
+  }
+
+  /**
+   * @param notModified answers a conditional GET from the user and seasons the page was loaded with
+   * @return {@code null} if {@code notModified} did
+   */
+  private String log(String uid, String id, boolean htmx, HttpServletResponse response, BiPredicate<UserStamp, List<Season>> notModified, Model model) {
+    UserSeason data;
+    List<Season> seasons;
+    SeasonSummary summary;
+    try (ParallelReads.Scope reads = parallelReads.open()) {
+      Supplier<UserSeason> overview = reads.fork(() -> loadOverview(uid, id));
+      Supplier<List<Season>> seasonsRead = reads.fork(seasonRepository::findAll);
+      Supplier<SeasonSummary> summaryRead = reads.fork(() -> summaries.get(uid, id));
+      reads.join();
+      data = overview.get();
+      seasons = seasonsRead.get();
+      summary = summaryRead.get();
+    }
+    if (notModified.test(data, seasons)) {
+      return null;
+    }
+    Optional<Season> latest = seasons.stream().filter(season -> season.getId().equals(id)).findFirst();
+    User user = data.toUser();
     model.addAttribute("edit", null);
     model.addAttribute("add", -1);
     model.addAttribute("user", user);
-    Optional<Season> latest = seasonRepository.findById(id);
-    model.addAttribute("earned", LogEntry.getStats(id, user.getLogEntries(), user.getAssignments()));
     if (latest.isPresent()) {
       model.addAttribute("season", latest.get());
-      model.addAttribute("used", Assigment.getStats(latest.get(), user.getAssignments()));
-      model.addAttribute("assignableLogs", user.available(latest.get().getId()));
+      model.addAttribute("view", OverviewView.firstPage(user, latest.get(), -1, summary));
     }
     else {
       model.addAttribute("season", seasonRepository.findFirstByOrderByStartDesc());
-      model.addAttribute("used", new Stats());
-      model.addAttribute("assignableLogs", Collections.emptyList());
+      model.addAttribute("view", OverviewView.builder().earned(summary.earned()).used(new Stats()).build());
     }
     if (htmx) {
       latest.ifPresent(s->response.addHeader("HX-Push-Url", "/log/" + uid + "/" + s.getId()));
       return "overview :: seasontable";
     }
     else {
-      model.addAttribute("seasons",seasonRepository.findAll());
-      model.addAttribute("locations", user.locations());
-      model.addAttribute("characters", user.characters());
+      model.addAttribute("seasons",seasons);
+      model.addAttribute("locations", data.getLocations());
+      model.addAttribute("characters", data.getCharacters());
       return "overview";
     }
   }
   @PatchMapping("/entry/{uid}/{id}")
   public String entry(@PathVariable String uid, @PathVariable String id, @RequestParam(defaultValue = "false") boolean triggered, HttpServletResponse response, Model model) {
     User user = getUser(uid);
-    UUID uuid = UUID.fromString(id);
-    Optional<LogEntry> entry = user.getLogEntries().stream().filter(l->l.getId().equals(uuid)).findFirst();
+    Optional<LogEntry> entry = findEntry(uid, UUID.fromString(id));
     if (entry.isEmpty()) {
       throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
     }
     LogEntry logEntry = entry.get();
-    model.addAttribute("offset", 0);
     model.addAttribute("edit", null);
     model.addAttribute("add", -1);
     Season latest = seasonRepository.findById(logEntry.getSeason()).orElse(seasonRepository.findFirstByOrderByStartDesc());
@@ -554,14 +893,19 @@ public class ServiceController {
     if (!triggered) {
       response.addHeader("HX-Push-Url", "/log/" + uid + "/" + latest.getId());
     }
-    model.addAttribute("user", User.builder().userId(user.getUserId()).logEntries(List.of(logEntry)).assignments(user.getAssignments()).build());
+    user.setAssignments(latest.isArchived() ? seasonArchive.assignments(uid, latest.getId()) : assignmentRepository.findByUserIdAndSeason(uid, latest.getId()));
+    model.addAttribute("user", user);
+    model.addAttribute("view", OverviewView.ofLogs(user, latest, List.of(logEntry)));
     return "overview :: log";
   }
   @GetMapping("/entry/{uid}/{id}")
-  public String entry(@PathVariable String uid, @PathVariable String id, @RequestParam(defaultValue = "false") boolean triggered, @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, @RequestParam(defaultValue="true") boolean edit, HttpServletResponse response, Model model) {
+  public String entry(@PathVariable String uid, @PathVariable String id, @RequestParam(defaultValue = "false") boolean triggered, @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, @RequestParam(defaultValue="true") boolean edit, WebRequest request, HttpServletResponse response, Model model) {
+    if (notModified(request, response, uid, htmx)) {
+      return null;
+    }
     User user = getUser(uid);
     UUID uuid = UUID.fromString(id);
-    Optional<LogEntry> entry = user.getLogEntries().stream().filter(l->l.getId().equals(uuid)).findFirst();
+    Optional<LogEntry> entry = findEntry(uid, uuid);
     if (entry.isEmpty()) {
       if (htmx) {
         throw new ResponseStatusException(NOT_FOUND, "Unable to find resource");
@@ -569,93 +913,96 @@ public class ServiceController {
       return "redirect:/log/" + uid;
     }
     LogEntry logEntry = entry.get();
-    model.addAttribute("offset", 0);
-    model.addAttribute("edit", uuid);
     model.addAttribute("add", -1);
     Season latest = seasonRepository.findById(logEntry.getSeason()).orElse(seasonRepository.findFirstByOrderByStartDesc());
+    model.addAttribute("edit", latest != null && latest.isArchived() ? null : uuid);
     model.addAttribute("season", latest);
     if (latest != null) {
-      model.addAttribute("assignableLogs", user.available(latest.getId()));
-    }
-    else {
-      model.addAttribute("assignableLogs", Collections.emptyList());
+      loadSeason(user, latest.getId());
     }
     if (htmx) {
       if (!triggered) {
         response.addHeader("HX-Push-Url", "/entry/" + uid + "/" + id);
       }
-      model.addAttribute("user", User.builder().userId(user.getUserId()).logEntries(List.of(logEntry)).assignments(user.getAssignments()).build());
+      model.addAttribute("user", user);
+      model.addAttribute("view", OverviewView.ofLogs(user, latest, List.of(logEntry)));
       return "overview :: log";
     }
     else {
       if (latest != null) {
         model.addAttribute("user", user);
-        model.addAttribute("earned", LogEntry.getStats(latest.getId(), user.getLogEntries(), user.getAssignments()));
-        model.addAttribute("used", Assigment.getStats(latest, user.getAssignments()));
+        SeasonSummary summary = summaries.get(uid, latest.getId());
+        model.addAttribute("view", OverviewView.of(user, latest, 0, -1, user.getLogEntries(), summary.earned(), summary.used()));
       } else {
-        model.addAttribute("earned", new Stats());
-        model.addAttribute("used", new Stats());
+        model.addAttribute("view", OverviewView.builder().earned(new Stats()).used(new Stats()).build());
       }
       model.addAttribute("seasons",seasonRepository.findAll());
-      model.addAttribute("locations", user.locations());
-      model.addAttribute("characters", user.characters());
+      model.addAttribute("locations", logEntryRepository.findLocations(uid));
+      model.addAttribute("characters", assignmentRepository.findCharacters(uid));
       return "overview";
     }
   }
 
   @GetMapping("/log/{uid}/{id}/{index}")
-  public String log(@PathVariable String uid,  @PathVariable String id, @PathVariable int index, @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, HttpServletResponse response, Model model) {
-    User user = getUser(uid);
+  public String log(@PathVariable String uid,  @PathVariable String id, @PathVariable int index, @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, WebRequest request, HttpServletResponse response, Model model) {
+    if (notModified(request, response, uid, htmx)) {
+      return null;
+    }
+    User user = loadSeason(getUser(uid), id);
     model.addAttribute("edit", null);
     model.addAttribute("add", index);
     model.addAttribute("user", user);
     Optional<Season> latest = seasonRepository.findById(id);
-    model.addAttribute("assignableLogs", latest.map(s->user.available(s.getId())).orElse(Collections.emptyList()));
     if (htmx) {
-      model.addAttribute("offset", index);
       RewardEntry entry = new RewardEntry();
       if (latest.isPresent()) {
         List<RewardEntry> list = latest.get().getRewards();
         if (index >= 0 && index < list.size()) entry = list.get(index);
       }
-      model.addAttribute("season", Season.builder().id(id).rewards(List.of(entry)).build());
+      Season slice = Season.builder().id(id).rewards(List.of(entry)).archived(latest.map(Season::isArchived).orElse(false)).build();
+      model.addAttribute("season", slice);
+      model.addAttribute("view", OverviewView.of(user, slice, index, index, List.of(), null, null));
       response.addHeader("HX-Push-Url", "/log/" + uid + "/" + id + "/" + index);
       return "overview :: reward";
     }
     else {
-      model.addAttribute("earned", LogEntry.getStats(id, user.getLogEntries(), user.getAssignments()));
-      model.addAttribute("used", latest.map(s->Assigment.getStats(s, user.getAssignments())).orElse(new Stats()));
-      latest.ifPresent(season -> model.addAttribute("season",season));
-      model.addAttribute("offset", 0);
+      SeasonSummary summary = summaries.get(uid, id);
+      if (latest.isPresent()) {
+        model.addAttribute("season", latest.get());
+        model.addAttribute("view", OverviewView.firstPage(user, latest.get(), index, summary));
+      }
+      else {
+        model.addAttribute("view", OverviewView.builder().earned(summary.earned()).used(new Stats()).build());
+      }
       model.addAttribute("seasons",seasonRepository.findAll());
-      model.addAttribute("locations", user.locations());
-      model.addAttribute("characters", user.characters());
+      model.addAttribute("locations", logEntryRepository.findLocations(uid));
+      model.addAttribute("characters", assignmentRepository.findCharacters(uid));
       return "overview";
     }
   }
 
   @PatchMapping("/log/{uid}/{id}/{index}")
   public String log(@PathVariable String uid,  @PathVariable String id, @PathVariable int index, HttpServletResponse response, Model model) {
-    User user = getUser(uid);
+    User user = loadSeason(getUser(uid), id);
     model.addAttribute("edit", null);
     model.addAttribute("add", -1);
     model.addAttribute("user", user);
     Optional<Season> latest = seasonRepository.findById(id);
-    model.addAttribute("offset", index);
-    model.addAttribute("assignableLogs", latest.map(s->user.available(s.getId())).orElse(Collections.emptyList()));
     response.addHeader("HX-Push-Url", "/log/" + uid + "/" + id);
     RewardEntry entry = new RewardEntry();
     if (latest.isPresent()) {
       List<RewardEntry> list = latest.get().getRewards();
       if (index >= 0 && index < list.size()) entry = list.get(index);
     }
-    model.addAttribute("season", Season.builder().id(id).rewards(List.of(entry)).build());
+    Season slice = Season.builder().id(id).rewards(List.of(entry)).archived(latest.map(Season::isArchived).orElse(false)).build();
+    model.addAttribute("season", slice);
+    model.addAttribute("view", OverviewView.of(user, slice, index, -1, List.of(), null, null));
     return "overview :: reward";
   }
 
   @PostMapping("/newSeason")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String newSeason(@RequestParam String id, @RequestParam LocalDate start, @RequestParam LocalDate end, @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, HttpServletResponse response, Model model) {
-    testAdmin();
     Season season = new Season();
     season.setEnd(Date.from(end.atStartOfDay(ZoneId.systemDefault()).toInstant()));
     season.setStart(Date.from(start.atStartOfDay(ZoneId.systemDefault()).toInstant()));
@@ -671,8 +1018,8 @@ public class ServiceController {
   }
 
   @GetMapping("/admin/{id}")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String adminSeason(@PathVariable String id, @RequestHeader(defaultValue = "false", name="HX-Request") boolean htmx, HttpServletResponse response, Model model) {
-    testAdmin();
     Optional<Season> season = seasonRepository.findById(id);
     season.ifPresent(model::addAttribute);
     model.addAttribute("offset", 0);
@@ -688,9 +1035,32 @@ public class ServiceController {
     }
   }
 
+  @GetMapping("/admin/{id}/scoring")
+  @ResponseBody
+  @Secured(AdminAuthorities.ROLE_ADMIN)
+  public List<ScoringRule> scoring(@PathVariable String id) {
+    return seasonRepository.findById(id).orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Unable to find resource")).scoring().getRules();
+  }
+
+  /**
+   * Replaces the season's scoring rules and rescores its summaries.
+   */
+  @PutMapping("/admin/{id}/scoring")
+  @ResponseBody
+  @Secured(AdminAuthorities.ROLE_ADMIN)
+  public List<ScoringRule> saveScoring(@PathVariable String id, @RequestBody List<ScoringRule> rules) {
+    Season season = seasonRepository.findById(id).map(Season::copy).orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Unable to find resource"));
+    if (rules.stream().anyMatch(rule -> rule.getActivity() == null || rule.getUnit() == null)) {
+      throw new ResponseStatusException(BAD_REQUEST, "Rules need an activity and a unit");
+    }
+    season.setScoring(new Scoring(rules));
+    summaries.rebuild(seasonRepository.save(season));
+    return rules;
+  }
+
   @DeleteMapping("/admin/{id}")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String deleteSeason(@PathVariable String id, HttpServletResponse response, Model model) {
-    testAdmin();
     seasonRepository.deleteById(id);
     model.addAttribute("seasons",seasonRepository.findAll());
     model.addAttribute("offset",0);
@@ -704,8 +1074,8 @@ public class ServiceController {
   }
 
   @PostMapping("/level")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String addLevel(@RequestParam String id, @RequestParam String name, @RequestParam(required = false, defaultValue = "0") Integer cost, @RequestParam(required = false) boolean singleSession, Model model) {
-    testAdmin();
     RewardLevel level = new RewardLevel();
     level.setId(id);
     level.setName(name);
@@ -719,25 +1089,25 @@ public class ServiceController {
   }
 
   @DeleteMapping("/level/{id}")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String deleteLevel(@PathVariable String id, Model model) {
-    testAdmin();
     rewardLevelRepository.deleteById(id);
     model.addAttribute("levelIds", rewardLevelRepository.findAll());
     return "admin :: rewardsswap";
   }
 
   @GetMapping("/level/{id}")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String getLevel(@PathVariable String id, @RequestParam(required = false) boolean edit, Model model) {
-    testAdmin();
     rewardLevelRepository.findById(id).ifPresent(l->model.addAttribute("levels", List.of(l)));
     model.addAttribute("edit", edit);
     return "admin :: line";
   }
 
   @PutMapping("/level/{id}")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String saveLevel(@PathVariable String id, @RequestParam String name, @RequestParam(required = false) Integer cost, @RequestParam(required = false) boolean singleSession, Model model) {
-    testAdmin();
-    Optional<RewardLevel> level = rewardLevelRepository.findById(id);
+    Optional<RewardLevel> level = rewardLevelRepository.findById(id).map(RewardLevel::copy);
     if (level.isPresent()) {
       level.get().setName(name);
       level.get().setCost(Optional.ofNullable(cost).orElse(0));
@@ -751,11 +1121,11 @@ public class ServiceController {
   }
 
   @PostMapping("/admin/{id}")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String saveEntry(@PathVariable String id, @RequestParam String name, @RequestParam(required = false) Integer downtime, @RequestParam(required = false) Integer gp, @RequestParam(required = false) String url, @RequestParam String description, @RequestParam String level, @RequestParam(required = false) boolean allowsLevel, @RequestParam(required = false) boolean repeatable, Model model) {
-    testAdmin();
     Optional<Season> season = seasonRepository.findById(id);
     if (season.isPresent()) {
-      Season s = season.get();
+      Season s = season.get().copy();
       RewardEntry entry = new RewardEntry();
       entry.setName(name);
       entry.setDowntime(Optional.ofNullable(downtime).orElse(0));
@@ -775,8 +1145,8 @@ public class ServiceController {
   }
 
   @GetMapping("/admin/{id}/{index}")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String getReward(@PathVariable String id, @PathVariable int index, @RequestParam(required = false) boolean edit, Model model) {
-    testAdmin();
     Optional<Season> season = seasonRepository.findById(id);
     if (season.isPresent()) {
       Season s = season.get();
@@ -793,11 +1163,11 @@ public class ServiceController {
   }
 
   @PutMapping("/admin/{id}/{index}")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String updateReward(@PathVariable String id, @PathVariable int index, @RequestParam String name, @RequestParam(defaultValue = "0") int downtime, @RequestParam(defaultValue = "0") int gp, @RequestParam(required = false) String url, @RequestParam String description, @RequestParam String level, @RequestParam(required = false) boolean allowsLevel, @RequestParam(required = false) boolean repeatable, Model model) {
-    testAdmin();
     Optional<Season> season = seasonRepository.findById(id);
     if (season.isPresent()) {
-      Season s = season.get();
+      Season s = season.get().copy();
       if (s.getRewards().size() > index && index >= 0) {
         RewardEntry entry = s.getRewards().get(index);
         entry.setName(name);
@@ -809,6 +1179,7 @@ public class ServiceController {
         entry.setRepeatable(repeatable);
         rewardLevelRepository.findById(level).ifPresent(entry::setLevel);
         seasonRepository.save(s);
+        summaries.rebuild(s);
         model.addAttribute("offset", index);
         model.addAttribute("season", Season.builder().id(s.getId()).rewards(List.of(entry)).build());
         return "admin :: entry";
@@ -818,21 +1189,21 @@ public class ServiceController {
   }
 
   private void testAdmin() {
-    Principal principal = SecurityContextHolder.getContext().getAuthentication();
-    if (principal == null || principal instanceof AnonymousAuthenticationToken || !userRepository.findById(principal.getName()).map(User::isAdmin).orElse(false)) {
+    if (!AdminAuthorities.isAdmin(SecurityContextHolder.getContext().getAuthentication())) {
       throw new ResponseStatusException(FORBIDDEN);
     }
   }
 
   @DeleteMapping("/admin/{id}/{index}")
+  @Secured(AdminAuthorities.ROLE_ADMIN)
   public String deleteReward(@PathVariable String id, @PathVariable int index, Model model) {
-    testAdmin();
     Optional<Season> season = seasonRepository.findById(id);
     if (season.isPresent()) {
-      Season s = season.get();
+      Season s = season.get().copy();
       if (s.getRewards().size() > index && index >= 0) {
         s.getRewards().remove(index);
         seasonRepository.save(s);
+        summaries.rebuild(s);
       }
       model.addAttribute(s);
       model.addAttribute("offset", 0);
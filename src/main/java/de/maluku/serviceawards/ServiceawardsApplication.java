@@ -1,13 +1,19 @@
-package de.maluku.serviceawards;
-
-import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-@SpringBootApplication
-public class ServiceawardsApplication {
-
-  public static void main(String[] args) {
-    SpringApplication.run(ServiceawardsApplication.class, args);
-  }
-
-}
+package de.maluku.serviceawards;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableCaching
+@EnableMongoAuditing
+@EnableScheduling
+public class ServiceawardsApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(ServiceawardsApplication.class, args);
+  }
+
+}
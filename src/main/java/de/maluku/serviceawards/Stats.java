@@ -18,12 +18,6 @@ public class Stats {
   private int rewards;
   private int quarters;
 
-  public Stats(LogEntry entry) {
-    this.servicehours = entry.getTotalFullHours() + entry.getTotalQuarterHours() / 4;
-    this.rewards = entry.getTotalRewards();
-    this.quarters = entry.getTotalQuarterHours() % 4;
-  }
-
   public Stats(final RewardEntry rewardEntry) {
     this(rewardEntry != null ? rewardEntry.getLevel() : null);
   }
@@ -0,0 +1,54 @@
+package de.maluku.serviceawards;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mutable running total behind {@link LogEntry#getStats} and {@link Assigment#getStats}. Sums plain ints and only
+ * folds quarter hours into full hours once, in {@link #toStats()}, which also records how long the computation took.
+ * Log entries are summed as raw {@link Activity} counters and scored with a single dot product at the end.
+ */
+final class StatsAccumulator {
+  static final Timer EARNED = Metrics.timer("serviceawards.stats", "kind", "earned");
+  static final Timer USED = Metrics.timer("serviceawards.stats", "kind", "used");
+
+  private final Timer timer;
+  private final Scoring scoring;
+  private final long started = System.nanoTime();
+  private final int[] counters = new int[Activity.COUNT];
+  private int fullHours;
+  private int rewards;
+
+  StatsAccumulator(Timer timer) {
+    this(timer, Scoring.DEFAULT);
+  }
+
+  StatsAccumulator(Timer timer, Scoring scoring) {
+    this.timer = timer;
+    this.scoring = scoring;
+  }
+
+  void add(LogEntry entry) {
+    entry.addTo(counters);
+  }
+
+  void add(RewardEntry rewardEntry) {
+    if (rewardEntry != null && rewardEntry.getLevel() != null) {
+      fullHours += rewardEntry.getLevel().getCost();
+    }
+  }
+
+  void addReward() {
+    rewards++;
+  }
+
+  Stats toStats() {
+    int fullHours = this.fullHours + scoring.fullHours(counters);
+    int quarterHours = scoring.quarterHours(counters);
+    int rewards = this.rewards + scoring.rewards(counters);
+    timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    return new Stats(fullHours + quarterHours / 4, rewards, quarterHours % 4);
+  }
+}
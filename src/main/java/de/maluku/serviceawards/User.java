@@ -1,5 +1,6 @@
 package de.maluku.serviceawards;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -8,16 +9,20 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Document
@@ -27,21 +32,53 @@ import java.util.stream.Stream;
 @NoArgsConstructor
 @AllArgsConstructor
 @RequiredArgsConstructor
-public class User {
+public class User implements UserStamp {
   @Id
   @NonNull
   private String userId;
+  @Transient
   @Builder.Default
   private List<LogEntry> logEntries = new ArrayList<>(
     //List.of(new LogEntry("0","11A", new Date(), "A", "B", "Home", 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12))
   );
+  @Transient
   @Builder.Default
   private List<Assigment> assignments = new ArrayList<>();
 
   private boolean admin;
+  @Version
+  private long version;
+  /** set together with every version bump by {@link LogMutations} */
+  private Date modified;
+  @Transient
+  @Getter(AccessLevel.NONE)
+  private final transient Indexes indexes = new Indexes();
+
+  public void setLogEntries(List<LogEntry> logEntries) {
+    this.logEntries = logEntries;
+    invalidate();
+  }
+
+  public void setAssignments(List<Assigment> assignments) {
+    this.assignments = assignments;
+    invalidate();
+  }
+
+  public void addAssignment(Assigment assigment) {
+    assignments.add(assigment);
+    invalidate();
+  }
+
+  /**
+   * Drops the lookup indexes, call after changing an entry or assignment in place.
+   */
+  public void invalidate() {
+    indexes.entries = null;
+    indexes.rewards = null;
+  }
 
   public List<Assigment> find(String season, int index) {
-    return assignments.stream().filter(a-> Objects.equals(a.getSeason(), season) && a.getReward() == index).toList();
+    return rewards().getOrDefault(new RewardSlot(season, index), List.of());
     /*return List.of(Assigment.builder()
         .title("+2 Sword")
         .assignedLevel(new java.util.Date())
@@ -52,17 +89,19 @@ public class User {
       .build());*/
   }
   public LogEntry find(UUID id) {
-    return logEntries.stream().filter(a-> Objects.equals(a.getId(), id)).findFirst().orElse(null);
+    return entries().get(id);
   }
 
   public boolean used(UUID id) {
-    return assignments.stream().anyMatch(s->Objects.equals(s.getEntryAsPlayer(), id));
+    rewards();
+    return indexes.used.contains(id);
   }
 
   public List<LogEntry> available(String season, UUID... alwaysInclude) {
-    Set<UUID> assigned = assignments.stream().filter(s->s.getEntryAsPlayer() != null && Objects.equals(season, s.getSeason())).map(Assigment::getEntryAsPlayer).collect(Collectors.toSet());
-    Arrays.asList(alwaysInclude).forEach(assigned::remove);
-    return logEntries.stream().filter(l->Objects.equals(l.getSeason(), season)).filter(l->!assigned.contains(l.getId())).toList();
+    rewards();
+    Set<UUID> assigned = indexes.usedBySeason.getOrDefault(season, Set.of());
+    List<UUID> included = Arrays.asList(alwaysInclude);
+    return logEntries.stream().filter(l->Objects.equals(l.getSeason(), season)).filter(l->!assigned.contains(l.getId()) || included.contains(l.getId())).toList();
   }
   public List<String> locations() {
     return logEntries.stream().map(LogEntry::getLocation).sorted().distinct().toList();
@@ -71,4 +110,45 @@ public class User {
   public List<String> characters() {
     return assignments.stream().flatMap(a-> Stream.of(a.getRewardCharacter(), a.getLevelUpCharacter())).filter(Objects::nonNull).sorted().distinct().toList();
   }
+
+  private Map<UUID, LogEntry> entries() {
+    if (indexes.entries == null) {
+      Map<UUID, LogEntry> entries = new HashMap<>();
+      for (LogEntry entry : logEntries) {
+        entries.putIfAbsent(entry.getId(), entry);
+      }
+      indexes.entries = entries;
+    }
+    return indexes.entries;
+  }
+
+  private Map<RewardSlot, List<Assigment>> rewards() {
+    if (indexes.rewards == null) {
+      Map<RewardSlot, List<Assigment>> rewards = new HashMap<>();
+      Set<UUID> used = new HashSet<>();
+      Map<String, Set<UUID>> usedBySeason = new HashMap<>();
+      for (Assigment assigment : assignments) {
+        rewards.computeIfAbsent(new RewardSlot(assigment.getSeason(), assigment.getReward()), k -> new ArrayList<>()).add(assigment);
+        if (assigment.getEntryAsPlayer() != null) {
+          used.add(assigment.getEntryAsPlayer());
+          usedBySeason.computeIfAbsent(assigment.getSeason(), k -> new HashSet<>()).add(assigment.getEntryAsPlayer());
+        }
+      }
+      rewards.replaceAll((k, v) -> v.stream().sorted(Assigment.SLOT_ORDER).toList());
+      indexes.used = used;
+      indexes.usedBySeason = usedBySeason;
+      indexes.rewards = rewards;
+    }
+    return indexes.rewards;
+  }
+
+  private record RewardSlot(String season, int reward) {
+  }
+
+  private static final class Indexes {
+    private Map<UUID, LogEntry> entries;
+    private Map<RewardSlot, List<Assigment>> rewards;
+    private Set<UUID> used;
+    private Map<String, Set<UUID>> usedBySeason;
+  }
 }
@@ -1,6 +1,32 @@
 package de.maluku.serviceawards;
 
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Optional;
+
 public interface UserRepository extends MongoRepository<User, String> {
+  String MATCH_USER = "{ $match: { _id: ?0 } }";
+  String LOOKUP_SEASON_LOGS = "{ $lookup: { from: 'logEntries', localField: '_id', foreignField: 'userId', pipeline: [ { $match: { season: ?1 } }, { $sort: { date: -1, _id: -1 } } ], as: 'logEntries' } }";
+  String LOOKUP_SEASON_ASSIGNMENTS = "{ $lookup: { from: 'assignments', localField: '_id', foreignField: 'userId', pipeline: [ { $match: { season: ?1 } } ], as: 'assignments' } }";
+  String LOOKUP_ARCHIVED_LOGS = "{ $lookup: { from: 'archivedLogEntries', localField: '_id', foreignField: 'userId', pipeline: [ { $match: { season: ?1 } }, { $sort: { date: -1, _id: -1 } } ], as: 'logEntries' } }";
+  String LOOKUP_ARCHIVED_ASSIGNMENTS = "{ $lookup: { from: 'archivedAssignments', localField: '_id', foreignField: 'userId', pipeline: [ { $match: { season: ?1 } } ], as: 'assignments' } }";
+  String LOOKUP_LOCATIONS = "{ $lookup: { from: 'logEntries', localField: '_id', foreignField: 'userId', pipeline: [ { $match: { location: { $ne: null } } }, { $unionWith: { coll: 'archivedLogEntries', pipeline: [ { $match: { userId: ?0, location: { $ne: null } } } ] } }, { $group: { _id: '$location' } }, { $sort: { _id: 1 } } ], as: 'locations' } }";
+  String LOOKUP_CHARACTERS = "{ $lookup: { from: 'assignments', localField: '_id', foreignField: 'userId', pipeline: [ { $unionWith: { coll: 'archivedAssignments', pipeline: [ { $match: { userId: ?0 } } ] } }, { $project: { _id: 0, character: ['$rewardCharacter', '$levelUpCharacter'] } }, { $unwind: '$character' }, { $match: { character: { $ne: null } } }, { $group: { _id: '$character' } }, { $sort: { _id: 1 } } ], as: 'characters' } }";
+  String FLATTEN_NAMES = "{ $set: { locations: '$locations._id', characters: '$characters._id' } }";
+
+  boolean existsByUserIdAndAdminTrue(String userId);
+
+  /**
+   * Loads everything the overview of one season needs in a single round trip. Log entries are in
+   * {@code date desc, _id desc} order.
+   */
+  @Aggregation(pipeline = {MATCH_USER, LOOKUP_SEASON_LOGS, LOOKUP_SEASON_ASSIGNMENTS, LOOKUP_LOCATIONS, LOOKUP_CHARACTERS, FLATTEN_NAMES})
+  Optional<UserSeason> findSeason(String userId, String season);
+
+  /**
+   * {@link #findSeason} for a season whose rows were moved to the {@link SeasonArchive archive}.
+   */
+  @Aggregation(pipeline = {MATCH_USER, LOOKUP_ARCHIVED_LOGS, LOOKUP_ARCHIVED_ASSIGNMENTS, LOOKUP_LOCATIONS, LOOKUP_CHARACTERS, FLATTEN_NAMES})
+  Optional<UserSeason> findArchivedSeason(String userId, String season);
 }
@@ -0,0 +1,47 @@
+package de.maluku.serviceawards;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A user together with one season's log entries and assignments and the locations and characters used across all
+ * seasons, as loaded by {@link UserRepository#findSeason}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserSeason implements UserStamp {
+  @Id
+  private String userId;
+  private boolean admin;
+  private long version;
+  private Date modified;
+  private List<LogEntry> logEntries = new ArrayList<>();
+  private List<Assigment> assignments = new ArrayList<>();
+  private List<String> locations = new ArrayList<>();
+  private List<String> characters = new ArrayList<>();
+
+  public UserSeason(User user) {
+    this.userId = user.getUserId();
+    this.admin = user.isAdmin();
+    this.version = user.getVersion();
+    this.modified = user.getModified();
+  }
+
+  public User toUser() {
+    return User.builder()
+      .userId(userId)
+      .admin(admin)
+      .version(version)
+      .modified(modified)
+      .logEntries(new ArrayList<>(logEntries))
+      .assignments(new ArrayList<>(assignments))
+      .build();
+  }
+}
@@ -0,0 +1,12 @@
+package de.maluku.serviceawards;
+
+import java.util.Date;
+
+/**
+ * The change markers of a {@link User}, enough to answer conditional requests.
+ */
+public interface UserStamp {
+  long getVersion();
+
+  Date getModified();
+}
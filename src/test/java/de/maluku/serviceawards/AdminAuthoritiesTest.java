@@ -0,0 +1,89 @@
+package de.maluku.serviceawards;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AdminAuthoritiesTest {
+  private static final String USER = "user";
+
+  private final AdminAuthorities authorities = new AdminAuthorities(mock(UserRepository.class), Duration.ofMinutes(30));
+  private final MockHttpSession session = new MockHttpSession();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    DefaultOAuth2User principal = new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("OAUTH2_USER")), Map.of("id", USER), "id");
+    OAuth2AuthenticationToken token = new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "discord");
+    SecurityContextHolder.getContext().setAuthentication(token);
+    MockHttpServletRequest login = new MockHttpServletRequest();
+    login.setSession(session);
+    authorities.loginSuccessHandler().onAuthenticationSuccess(login, new MockHttpServletResponse(), token);
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void savesThatKeepTheFlagChangeNothing() throws Exception {
+    save(false);
+    save(false);
+
+    assertThat(request()).isFalse();
+  }
+
+  @Test
+  void aChangedFlagReachesSessionsResolvedBeforeIt() throws Exception {
+    save(false);
+    Thread.sleep(2);
+    save(true);
+
+    assertThat(request()).isTrue();
+  }
+
+  @Test
+  void aChangeIsNotAppliedAgainOverALaterResolution() throws Exception {
+    save(false);
+    save(true);
+    assertThat(request()).isTrue();
+    Thread.sleep(2);
+
+    MockHttpServletRequest login = new MockHttpServletRequest();
+    login.setSession(session);
+    OAuth2AuthenticationToken token = (OAuth2AuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+    SecurityContextHolder.getContext().setAuthentication(new OAuth2AuthenticationToken(token.getPrincipal(), List.of(), "discord"));
+    authorities.loginSuccessHandler().onAuthenticationSuccess(login, new MockHttpServletResponse(), token);
+
+    assertThat(request()).isFalse();
+  }
+
+  private void save(boolean admin) {
+    User user = new User(USER);
+    user.setAdmin(admin);
+    authorities.onSave(new AfterSaveEvent<>(user, null, "users"));
+  }
+
+  private boolean request() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setSession(session);
+    authorities.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    return AdminAuthorities.isAdmin(SecurityContextHolder.getContext().getAuthentication());
+  }
+}
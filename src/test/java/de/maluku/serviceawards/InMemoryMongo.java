@@ -0,0 +1,43 @@
+package de.maluku.serviceawards;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.UuidRepresentation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.net.InetSocketAddress;
+
+/**
+ * An in-memory MongoDB server with a template on it, so the Mongo-backed components can be tested without a database.
+ * UUIDs are stored the way Spring Boot configures the driver by default.
+ */
+final class InMemoryMongo implements AutoCloseable {
+  final MongoTemplate template;
+  private final MongoServer server;
+  private final MongoClient client;
+
+  InMemoryMongo() {
+    server = new MongoServer(new MemoryBackend());
+    InetSocketAddress address = server.bind();
+    client = MongoClients.create(MongoClientSettings.builder()
+      .applyConnectionString(new ConnectionString("mongodb://" + address.getHostString() + ":" + address.getPort()))
+      .uuidRepresentation(UuidRepresentation.JAVA_LEGACY)
+      .build());
+    template = new MongoTemplate(client, "serviceawards");
+  }
+
+  <T> T repository(Class<T> type) {
+    return new MongoRepositoryFactory(template).getRepository(type);
+  }
+
+  @Override
+  public void close() {
+    client.close();
+    server.shutdownNow();
+  }
+}
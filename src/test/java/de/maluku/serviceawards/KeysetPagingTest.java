@@ -0,0 +1,119 @@
+package de.maluku.serviceawards;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Walks a season's log the way the overview does: the first page from a limited query, then each page after the
+ * {@code (date, _id)} cursor of the previous one's last row.
+ */
+class KeysetPagingTest {
+  private static final String USER = "user";
+  private static final String SEASON = "13A";
+  private static final int LIMIT = OverviewView.PAGE_SIZE + 1;
+
+  private InMemoryMongo mongo;
+  private LogEntryRepository logs;
+  private SeasonArchive archive;
+  private Season season;
+  private List<UUID> expected;
+
+  @BeforeEach
+  void setUp() {
+    mongo = new InMemoryMongo();
+    SeasonRepository seasons = mongo.repository(SeasonRepository.class);
+    logs = mongo.repository(LogEntryRepository.class);
+    archive = new SeasonArchive(mongo.template, seasons, new SeasonSummaries(mongo.template, seasons, new BatchScoring(mongo.template)), Duration.ofDays(30), Duration.ZERO);
+    season = seasons.save(Season.builder().id(SEASON).start(new Date(0)).end(new Date(1)).build());
+    mongo.template.insert(new User(USER));
+
+    // more rows on one date than fit on a page, so a page boundary falls between equal dates
+    Date busy = new Date(1_700_000_000_000L);
+    for (int i = 0; i < 40; i++) {
+      logs.save(entry(busy));
+    }
+    for (int i = 0; i < 15; i++) {
+      logs.save(entry(new Date(busy.getTime() + (i - 7) * 86_400_000L)));
+    }
+    for (int i = 0; i < 12; i++) {
+      logs.save(entry(null));
+    }
+    LogEntry otherSeason = entry(busy);
+    otherSeason.setSeason("12B");
+    logs.save(otherSeason);
+    LogEntry otherUser = entry(busy);
+    otherUser.setUserId("other");
+    logs.save(otherUser);
+
+    expected = ids(logs.findByUserIdAndSeasonOrderByDateDescIdDesc(USER, SEASON, Limit.unlimited()));
+    assertThat(expected).hasSize(67);
+  }
+
+  @AfterEach
+  void tearDown() {
+    mongo.close();
+  }
+
+  @Test
+  void livePagesCoverEveryRowOnceInOrder() {
+    assertThat(walk(logs.findByUserIdAndSeasonOrderByDateDescIdDesc(USER, SEASON, Limit.of(LIMIT)), false)).isEqualTo(expected);
+  }
+
+  @Test
+  void archivedPagesCoverEveryRowOnceInOrder() {
+    archive.archive(season);
+
+    assertThat(ids(archive.logs(USER, SEASON))).isEqualTo(expected);
+    assertThat(walk(archive.logs(USER, SEASON).subList(0, LIMIT), true)).isEqualTo(expected);
+  }
+
+  @Test
+  void aCursorFromTheLiveCollectionContinuesInTheArchive() {
+    List<LogEntry> first = logs.findByUserIdAndSeasonOrderByDateDescIdDesc(USER, SEASON, Limit.of(LIMIT));
+    archive.archive(season);
+
+    assertThat(logs.findByUserIdAndSeason(USER, SEASON)).isEmpty();
+    assertThat(walk(first, true)).isEqualTo(expected);
+  }
+
+  private List<UUID> walk(List<LogEntry> page, boolean archived) {
+    List<UUID> seen = new ArrayList<>();
+    while (true) {
+      seen.addAll(ids(page.subList(0, Math.min(page.size(), OverviewView.PAGE_SIZE))));
+      if (OverviewView.nextPage(USER, SEASON, page) == null) {
+        return seen;
+      }
+      LogEntry last = page.get(OverviewView.PAGE_SIZE - 1);
+      if (archived) {
+        page = archive.pageAfter(USER, SEASON, last.getDate(), last.getId(), LIMIT);
+      }
+      else {
+        page = last.getDate() != null
+          ? logs.findPageAfter(USER, SEASON, last.getDate(), last.getId(), Limit.of(LIMIT))
+          : logs.findUndatedPageAfter(USER, SEASON, last.getId(), Limit.of(LIMIT));
+      }
+    }
+  }
+
+  private static List<UUID> ids(List<LogEntry> entries) {
+    return entries.stream().map(LogEntry::getId).toList();
+  }
+
+  private static LogEntry entry(Date date) {
+    return LogEntry.builder()
+      .userId(USER)
+      .season(SEASON)
+      .date(date)
+      .build();
+  }
+}
@@ -0,0 +1,112 @@
+package de.maluku.serviceawards;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogImportTest {
+  private static final String USER = "user";
+  private static final String SEASON = "13A";
+
+  private InMemoryMongo mongo;
+  private LogMutations mutations;
+  private LogImport logImport;
+  private LogExport logExport;
+
+  @BeforeEach
+  void setUp() {
+    mongo = new InMemoryMongo();
+    SeasonRepository seasons = mongo.repository(SeasonRepository.class);
+    SeasonSummaries summaries = new SeasonSummaries(mongo.template, seasons, new BatchScoring(mongo.template));
+    mutations = new LogMutations(mongo.template, summaries, new PageCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1)));
+    logImport = new LogImport(seasons, mutations, summaries, new ObjectMapper());
+    logExport = new LogExport(mongo.template, summaries, new ObjectMapper());
+    seasons.save(Season.builder().id(SEASON).start(new Date(0)).end(new Date()).build());
+    mongo.template.insert(new User(USER));
+  }
+
+  @AfterEach
+  void tearDown() {
+    mongo.close();
+  }
+
+  @Test
+  void quotedFieldsKeepCommasLineBreaksAndDoubledQuotes() throws IOException {
+    List<List<String>> records = read("title,notes,dm\n\"Tomb, part 2\",\"first line\nsecond, \"\"quoted\"\"\",3\n");
+
+    assertThat(records).containsExactly(
+      List.of("title", "notes", "dm"),
+      List.of("Tomb, part 2", "first line\nsecond, \"quoted\"", "3"));
+  }
+
+  @Test
+  void crlfEndsRecordsButStaysInsideQuotes() throws IOException {
+    List<List<String>> records = read("title,notes\r\na,\"x\r\ny\"\r\nb,\r\n");
+
+    assertThat(records).containsExactly(List.of("title", "notes"), List.of("a", "x\r\ny"), List.of("b", ""));
+  }
+
+  @Test
+  void byteOrderMarkIsNotPartOfTheFirstColumn() throws IOException {
+    assertThat(read("\uFEFFdate;title\r\n2024-05-01;a\r\n")).containsExactly(List.of("date", "title"), List.of("2024-05-01", "a"));
+  }
+
+  @Test
+  void importingAnExportAgainAddsNothing() throws IOException {
+    mutations.addLog(entry("Tomb, part 2", "first line\nsecond, \"quoted\"", 3));
+    mutations.addLog(entry(null, null, 1));
+    mutations.addLog(entry("plain", "", 0));
+    ByteArrayOutputStream csv = new ByteArrayOutputStream();
+    logExport.user(USER, LogExport.Format.CSV, null, csv);
+
+    LogImport.Progress progress = logImport.run(USER, new ByteArrayInputStream(csv.toByteArray()), LogImport.Format.CSV, p -> { });
+
+    assertThat(progress).isEqualTo(new LogImport.Progress(3, 0, 3, 0, true));
+    assertThat(mongo.template.count(new Query(), LogEntry.class)).isEqualTo(3);
+  }
+
+  @Test
+  void importedRowsAreStoredOnceWithoutAnId() throws IOException {
+    String csv = "season,title,dm\r\n13A,\"a, b\",2\r\n13A,\"a, b\",2\r\n";
+
+    LogImport.Progress progress = logImport.run(USER, new ByteArrayInputStream(csv.getBytes()), LogImport.Format.CSV, p -> { });
+
+    assertThat(progress).isEqualTo(new LogImport.Progress(2, 1, 1, 0, true));
+  }
+
+  private static List<List<String>> read(String csv) throws IOException {
+    List<List<String>> records = new ArrayList<>();
+    try (LogImport.CsvReader reader = new LogImport.CsvReader(new BufferedReader(new StringReader(csv)))) {
+      for (List<String> record = reader.next(); record != null; record = reader.next()) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  private static LogEntry entry(String title, String notes, int dm) {
+    return LogEntry.builder()
+      .userId(USER)
+      .season(SEASON)
+      .date(new Date())
+      .title(title)
+      .notes(notes)
+      .dm(dm)
+      .build();
+  }
+}
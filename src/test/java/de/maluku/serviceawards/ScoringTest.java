@@ -0,0 +1,129 @@
+package de.maluku.serviceawards;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link Scoring#DEFAULT} must score exactly like the fixed formulas every season used before scoring was stored
+ * with the season.
+ */
+class ScoringTest {
+  private static final Season SEASON = Season.builder().id("13A").build();
+
+  @Test
+  void defaultRulesMatchTheFixedFormulasPerEntry() {
+    for (LogEntry entry : List.of(entry(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13), entry(0, 0, 0, 0, 3, 0, 0, 1, 1, 0, 0, 0, 0), new LogEntry())) {
+      int[] counters = entry.counters();
+      assertThat(Scoring.DEFAULT.fullHours(counters)).isEqualTo(baselineFullHours(entry));
+      assertThat(Scoring.DEFAULT.quarterHours(counters)).isEqualTo(baselineQuarterHours(entry));
+      assertThat(Scoring.DEFAULT.rewards(counters)).isEqualTo(baselineRewards(entry));
+    }
+  }
+
+  @Test
+  void quartersCarryIntoHoursAcrossEntries() {
+    // 3 + 2 quarters, then 2 + 1: the carry lands on a whole hour exactly once
+    List<LogEntry> entries = List.of(entry(0, 0, 1, 0, 3, 0, 0, 0, 1, 0, 0, 0, 0), entry(0, 0, 0, 0, 1, 0, 0, 1, 0, 0, 0, 0, 0));
+    assertMatchesBaseline(entries, List.of());
+    assertThat(LogEntry.getStats(SEASON, entries, List.of())).usingRecursiveComparison().isEqualTo(new Stats(3, 0, 0));
+
+    List<LogEntry> oneShort = List.of(entry(0, 0, 1, 0, 3, 0, 0, 0, 1, 0, 0, 0, 0), entry(0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0));
+    assertMatchesBaseline(oneShort, List.of());
+    assertThat(LogEntry.getStats(SEASON, oneShort, List.of())).usingRecursiveComparison().isEqualTo(new Stats(2, 0, 3));
+  }
+
+  @Test
+  void rewardsAndPlayerEntriesMatchTheBaseline() {
+    LogEntry played = entry(5, 0, 2, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0);
+    LogEntry otherSeason = entry(7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7);
+    otherSeason.setSeason("12B");
+    List<LogEntry> entries = List.of(played, otherSeason, entry(0, 1, 0, 0, 0, 0, 0, 0, 0, 1, 0, 1, 1), entry(0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+    List<Assigment> assignments = List.of(Assigment.builder().season(SEASON.getId()).entryAsPlayer(played.getId()).build());
+
+    assertMatchesBaseline(entries, assignments);
+    assertThat(LogEntry.getStats(SEASON, entries, assignments)).usingRecursiveComparison().isEqualTo(new Stats(1, 4, 0));
+  }
+
+  @Test
+  void defaultRulesMatchTheBaselineOnRandomEntries() {
+    Random random = new Random(13);
+    for (int user = 0; user < 500; user++) {
+      List<LogEntry> entries = new ArrayList<>();
+      List<Assigment> assignments = new ArrayList<>();
+      for (int i = random.nextInt(20); i > 0; i--) {
+        int[] counters = new int[Activity.COUNT];
+        for (int c = 0; c < counters.length; c++) {
+          counters[c] = random.nextInt(4) == 0 ? random.nextInt(9) : 0;
+        }
+        LogEntry entry = entry(counters);
+        if (random.nextInt(8) == 0) entry.setSeason("12B");
+        if (random.nextInt(8) == 0) assignments.add(Assigment.builder().season(SEASON.getId()).entryAsPlayer(entry.getId()).build());
+        entries.add(entry);
+      }
+      assertMatchesBaseline(entries, assignments);
+    }
+  }
+
+  private static void assertMatchesBaseline(List<LogEntry> entries, List<Assigment> assignments) {
+    assertThat(LogEntry.getStats(SEASON, entries, assignments)).usingRecursiveComparison().isEqualTo(baseline(entries, assignments));
+    assertThat(Scoring.DEFAULT.stats(LogEntry.sum(SEASON, entries, assignments))).usingRecursiveComparison().isEqualTo(baseline(entries, assignments));
+  }
+
+  /** {@code LogEntry.getStats} as it was before scoring rules */
+  private static Stats baseline(List<LogEntry> entries, List<Assigment> assignments) {
+    Set<UUID> skipped = new HashSet<>();
+    for (Assigment assigment : assignments) {
+      if (assigment.getEntryAsPlayer() != null && Objects.equals(SEASON.getId(), assigment.getSeason())) skipped.add(assigment.getEntryAsPlayer());
+    }
+    int fullHours = 0;
+    int quarterHours = 0;
+    int rewards = 0;
+    for (LogEntry entry : entries) {
+      if (!Objects.equals(entry.getSeason(), SEASON.getId()) || skipped.contains(entry.getId())) continue;
+      fullHours += baselineFullHours(entry);
+      quarterHours += baselineQuarterHours(entry);
+      rewards += baselineRewards(entry);
+    }
+    return new Stats(fullHours + quarterHours / 4, rewards, quarterHours % 4);
+  }
+
+  private static int baselineFullHours(LogEntry e) {
+    return e.getAddServiceHours() + e.getDm() + e.getPrepTime() + e.getNewPlayers() + e.getMentoring() + e.getStreaming();
+  }
+
+  private static int baselineQuarterHours(LogEntry e) {
+    return e.getSafetyTools() + 2 * e.getLearnToPlay() + 2 * e.getReviewing();
+  }
+
+  private static int baselineRewards(LogEntry e) {
+    return e.getAddFullRewards() + e.getCodeOfConduct() + e.getEventOrga() + e.getEventStaffing();
+  }
+
+  private static LogEntry entry(int... counters) {
+    return LogEntry.builder()
+      .season(SEASON.getId())
+      .addServiceHours(counters[0])
+      .addFullRewards(counters[1])
+      .dm(counters[2])
+      .prepTime(counters[3])
+      .safetyTools(counters[4])
+      .newPlayers(counters[5])
+      .mentoring(counters[6])
+      .reviewing(counters[7])
+      .learnToPlay(counters[8])
+      .codeOfConduct(counters[9])
+      .streaming(counters[10])
+      .eventOrga(counters[11])
+      .eventStaffing(counters[12])
+      .build();
+  }
+}
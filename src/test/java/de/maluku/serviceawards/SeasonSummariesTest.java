@@ -0,0 +1,83 @@
+package de.maluku.serviceawards;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+class SeasonSummariesTest {
+  private static final String USER = "user";
+  private static final String SEASON = "13A";
+
+  private InMemoryMongo mongo;
+  private SeasonSummaries summaries;
+  private LogMutations mutations;
+  private Season season;
+
+  @BeforeEach
+  void setUp() {
+    mongo = new InMemoryMongo();
+    SeasonRepository seasons = mongo.repository(SeasonRepository.class);
+    summaries = new SeasonSummaries(mongo.template, seasons, new BatchScoring(mongo.template));
+    mutations = new LogMutations(mongo.template, summaries, new PageCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1)));
+    season = seasons.save(Season.builder().id(SEASON).start(new Date(0)).end(new Date()).build());
+    mongo.template.insert(new User(USER));
+  }
+
+  @AfterEach
+  void tearDown() {
+    mongo.close();
+  }
+
+  @Test
+  void deltasMatchAFreshScanAfterInsertDeleteAndEdit() {
+    LogEntry first = mutations.addLog(entry(5, 0, 2));
+    assertMatchesScan();
+    LogEntry second = mutations.addLog(entry(1, 1, 0));
+    assertMatchesScan();
+
+    mutations.removeLog(USER, first.getId(), mongo.template.findById(USER, User.class).getVersion());
+    assertMatchesScan();
+    assertThat(summaries.get(USER, SEASON).earned().getQuarters()).isEqualTo(3);
+
+    LogEntry lower = entry(0, 0, 1);
+    mutations.updateLog(USER, second.getId(), lower);
+    assertMatchesScan();
+    assertThat(summaries.get(USER, SEASON).earned().getQuarters()).isZero();
+  }
+
+  @Test
+  void rebuildKeepsTheScaleOfTheDeltas() {
+    LogEntry entry = mutations.addLog(entry(7, 0, 0));
+    summaries.rebuild(season);
+    mutations.updateLog(USER, entry.getId(), entry(2, 0, 0));
+    assertMatchesScan();
+  }
+
+  private void assertMatchesScan() {
+    List<LogEntry> entries = mongo.template.find(query(where("userId").is(USER)), LogEntry.class);
+    Stats expected = LogEntry.getStats(season, entries, List.of());
+    Stats earned = summaries.get(USER, SEASON).earned();
+    assertThat(earned).usingRecursiveComparison().isEqualTo(expected);
+    assertThat(earned.getQuarters()).isBetween(0, 3);
+  }
+
+  private static LogEntry entry(int safetyTools, int learnToPlay, int dm) {
+    return LogEntry.builder()
+      .userId(USER)
+      .season(SEASON)
+      .date(new Date())
+      .safetyTools(safetyTools)
+      .learnToPlay(learnToPlay)
+      .dm(dm)
+      .build();
+  }
+}
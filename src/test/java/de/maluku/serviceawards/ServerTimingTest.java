@@ -0,0 +1,57 @@
+package de.maluku.serviceawards;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerTimingTest {
+  private final ServerTiming filter = new ServerTiming();
+  private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/u/season/13A");
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void headerIsSentWithTheFirstBytesOfALargeResponse() throws Exception {
+    AtomicReference<String> atCommit = new AtomicReference<>();
+    FilterChain chain = (req, res) -> {
+      RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+      ServerTiming.record("handler", 2_000_000);
+      res.getWriter().write("x".repeat(res.getBufferSize() * 4));
+      assertThat(res.isCommitted()).isTrue();
+      atCommit.set(response.getHeader("Server-Timing"));
+      res.getWriter().write("more");
+    };
+
+    filter.doFilter(request, response, chain);
+
+    assertThat(atCommit.get()).startsWith("handler;dur=2.0, total;dur=");
+    assertThat(response.getHeaders("Server-Timing")).containsExactly(atCommit.get());
+    assertThat(response.getContentAsString()).endsWith("more");
+  }
+
+  @Test
+  void smallResponsesGetTheHeaderWhenTheRequestIsDone() throws Exception {
+    FilterChain chain = (req, res) -> {
+      RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+      ServerTiming.timed("available", () -> "ok");
+      ServerTiming.timed("available", () -> "ok");
+      res.getWriter().write("ok");
+    };
+
+    filter.doFilter(request, response, chain);
+
+    assertThat(response.getHeader("Server-Timing")).contains("available;dur=").contains("desc=\"2 calls\"").contains("total;dur=");
+  }
+}
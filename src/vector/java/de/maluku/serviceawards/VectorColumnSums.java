@@ -0,0 +1,27 @@
+package de.maluku.serviceawards;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ColumnSums} on the incubating Vector API: full lanes are accumulated in a vector and reduced once, the tail
+ * is summed scalar. Only reached through {@link ColumnSums#preferred()}.
+ */
+final class VectorColumnSums implements ColumnSums {
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  @Override
+  public int sum(int[] column, int from, int to) {
+    IntVector sums = IntVector.zero(SPECIES);
+    int i = from;
+    for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+      sums = sums.add(IntVector.fromArray(SPECIES, column, i));
+    }
+    int sum = sums.reduceLanes(VectorOperators.ADD);
+    for (; i < to; i++) {
+      sum += column[i];
+    }
+    return sum;
+  }
+}